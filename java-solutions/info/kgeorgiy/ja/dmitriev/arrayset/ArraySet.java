@@ -19,22 +19,92 @@ public class ArraySet<E> extends AbstractList<E> implements List<E>, NavigableSe
             final Collection<? extends E> c,
             final Comparator<? super E> comparator
     ) {
-        // :NOTE: c can be already sorted | cast in TreeSet
-        final var set = new TreeSet<E>(comparator);
-        set.addAll(c);
-        data = new ArrayList<>(set);
+        // :NOTE: c can be already sorted | fixed in sortedData
         cmp = Collections.reverseOrder(Collections.reverseOrder(comparator));
         returnedCmp = comparator;
+        data = sortedData(c);
+        index = null;
+        offset = 0;
     }
 
     private ArraySet(
             final List<E> data,
             final Comparator<? super E> cmp,
             final Comparator<? super E> returnedComparator
+    ) {
+        this(data, cmp, returnedComparator, null, 0);
+    }
+
+    private ArraySet(
+            final List<E> data,
+            final Comparator<? super E> cmp,
+            final Comparator<? super E> returnedComparator,
+            final EytzingerIndex<E> index,
+            final int offset
     ) {
         this.data = data;
         this.cmp = cmp;
         this.returnedCmp = returnedComparator;
+        this.index = index;
+        this.offset = offset;
+    }
+
+    /**
+     * Creates a read-optimized set, that additionally stores its elements in
+     * Eytzinger (BFS) order and uses them for navigation queries.
+     * The first levels of the search tree are kept together, so lookups in a set, that fits in cache,
+     * are about twice as fast. Elements are still references, every step of a lookup reads an element
+     * and calls the comparator, so in sets of millions of elements lookups are slower than ordinary ones,
+     * see {@code ArraySetBenchmark}. It takes about twice as much memory.
+     * Ascending subsets share the index, descending ones use ordinary binary search.
+     *
+     * @param c          elements of the set
+     * @param comparator comparator of the set or {@code null} for natural ordering
+     * @param <E>        the type of elements
+     * @return new {@link ArraySet}
+     */
+    public static <E> ArraySet<E> readOptimized(
+            final Collection<? extends E> c,
+            final Comparator<? super E> comparator
+    ) {
+        final var set = new ArraySet<E>(c, comparator);
+        return new ArraySet<>(set.data, set.cmp, set.returnedCmp,
+                              new EytzingerIndex<>(set.data, set.cmp), 0);
+    }
+
+    private List<E> sortedData(final Collection<? extends E> c) {
+        if (c instanceof SortedSet<?> sortedSet
+                && Objects.equals(sortedSet.comparator(), returnedCmp)) {
+            return asList(c.toArray());
+        }
+        final Object[] array = c.toArray();
+        if (array.length == 1) {
+            // type (and possibly null) check, as TreeSet does
+            compare(array[0], array[0]);
+        }
+        int size = Math.min(array.length, 1);
+        for (int i = 1; i < array.length; i++) {
+            final int res = compare(array[size - 1], array[i]);
+            if (res > 0) {
+                final var set = new TreeSet<E>(returnedCmp);
+                set.addAll(c);
+                return asList(set.toArray());
+            }
+            if (res < 0) {
+                array[size++] = array[i];
+            }
+        }
+        return asList(size == array.length ? array : Arrays.copyOf(array, size));
+    }
+
+    @SuppressWarnings("unchecked")
+    private int compare(final Object a, final Object b) {
+        return cmp.compare((E) a, (E) b);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E> List<E> asList(final Object[] array) {
+        return (List<E>) Arrays.asList(array);
     }
 
     @Override
@@ -73,6 +143,72 @@ public class ArraySet<E> extends AbstractList<E> implements List<E>, NavigableSe
         return binarySearch(e, 1, 0);
     }
 
+    /**
+     * Returns {@link #lower(Object)} indices for every probe.
+     * Probes are walked together with the set, each search gallops from the previous answer,
+     * so {@code k} probes take {@code O(k log(n / k))} comparisons instead of {@code O(k log n)}.
+     *
+     * @param sortedProbes keys sorted by {@link #comparator()} of this set
+     * @return index of the answer for every probe or {@code -1} if there is no such element
+     * @throws IllegalArgumentException if probes aren't sorted
+     */
+    public int[] lowerAll(final List<? extends E> sortedProbes) {
+        return searchAll(sortedProbes, 0, -1);
+    }
+
+    /**
+     * Returns {@link #floor(Object)} indices for every probe.
+     *
+     * @param sortedProbes keys sorted by {@link #comparator()} of this set
+     * @return index of the answer for every probe or {@code -1} if there is no such element
+     * @throws IllegalArgumentException if probes aren't sorted
+     * @see #lowerAll(List)
+     */
+    public int[] floorAll(final List<? extends E> sortedProbes) {
+        return searchAll(sortedProbes, 1, -1);
+    }
+
+    /**
+     * Returns {@link #ceiling(Object)} indices for every probe.
+     *
+     * @param sortedProbes keys sorted by {@link #comparator()} of this set
+     * @return index of the answer for every probe or {@code -1} if there is no such element
+     * @throws IllegalArgumentException if probes aren't sorted
+     * @see #lowerAll(List)
+     */
+    public int[] ceilingAll(final List<? extends E> sortedProbes) {
+        return searchAll(sortedProbes, 0, 0);
+    }
+
+    /**
+     * Returns {@link #higher(Object)} indices for every probe.
+     *
+     * @param sortedProbes keys sorted by {@link #comparator()} of this set
+     * @return index of the answer for every probe or {@code -1} if there is no such element
+     * @throws IllegalArgumentException if probes aren't sorted
+     * @see #lowerAll(List)
+     */
+    public int[] higherAll(final List<? extends E> sortedProbes) {
+        return searchAll(sortedProbes, 1, 0);
+    }
+
+    private int[] searchAll(final List<? extends E> probes, final int bound, final int shift) {
+        final int[] res = new int[probes.size()];
+        int i = 0;
+        int pos = 0;
+        E previous = null;
+        for (final E probe : probes) {
+            if (i > 0 && cmp.compare(previous, probe) > 0) {
+                throw new IllegalArgumentException(
+                        "Expected probes sorted by comparator of ArraySet!");
+            }
+            pos = gallop(data, pos, probe, bound, cmp);
+            res[i++] = isValidIndex(pos + shift) ? pos + shift : -1;
+            previous = probe;
+        }
+        return res;
+    }
+
     @Override
     public E pollLast() {
         throw new UnsupportedOperationException(
@@ -112,7 +248,7 @@ public class ArraySet<E> extends AbstractList<E> implements List<E>, NavigableSe
     }
 
     @Override
-    public NavigableSet<E> headSet(final E toElement, final boolean inclusive) {
+    public ArraySet<E> headSet(final E toElement, final boolean inclusive) {
         if (isEmpty()) {
             return new ArraySet<>(List.of(), cmp, returnedCmp);
         }
@@ -120,7 +256,7 @@ public class ArraySet<E> extends AbstractList<E> implements List<E>, NavigableSe
     }
 
     @Override
-    public NavigableSet<E> tailSet(final E fromElement,
+    public ArraySet<E> tailSet(final E fromElement,
             final boolean inclusive) {
         if (isEmpty()) {
             return new ArraySet<>(List.of(), cmp, returnedCmp);
@@ -225,7 +361,9 @@ public class ArraySet<E> extends AbstractList<E> implements List<E>, NavigableSe
     }
 
     private int binarySearch(final E key, final int found, final int notFound) {
-        int res = Collections.binarySearch(data, key, cmp);
+        int res = index == null
+                ? Collections.binarySearch(data, key, cmp)
+                : index.binarySearch(key, offset, offset + size());
         if (res < 0) {
             res = -(res + 1) + notFound;
         } else {
@@ -248,7 +386,149 @@ public class ArraySet<E> extends AbstractList<E> implements List<E>, NavigableSe
     }
 
 
-    private NavigableSet<E> subSetUnchecked(
+    /**
+     * Returns elements contained in {@code a} or {@code b}.
+     * Sets are merged in {@code O(n + m)}, runs are skipped by galloping.
+     *
+     * @param a   first set
+     * @param b   second set with comparator equal to {@code a}'s one
+     * @param <E> the type of elements
+     * @return new {@link ArraySet} with comparator of {@code a}
+     */
+    public static <E> ArraySet<E> union(final ArraySet<E> a, final ArraySet<E> b) {
+        return merge(a, b, true, true, true);
+    }
+
+    /**
+     * Returns elements contained in both {@code a} and {@code b}.
+     *
+     * @param a   first set
+     * @param b   second set with comparator equal to {@code a}'s one
+     * @param <E> the type of elements
+     * @return new {@link ArraySet} with comparator of {@code a}
+     * @see #union(ArraySet, ArraySet)
+     */
+    public static <E> ArraySet<E> intersection(final ArraySet<E> a, final ArraySet<E> b) {
+        return merge(a, b, false, true, false);
+    }
+
+    /**
+     * Returns elements contained in {@code a}, but not in {@code b}.
+     *
+     * @param a   first set
+     * @param b   second set with comparator equal to {@code a}'s one
+     * @param <E> the type of elements
+     * @return new {@link ArraySet} with comparator of {@code a}
+     * @see #union(ArraySet, ArraySet)
+     */
+    public static <E> ArraySet<E> difference(final ArraySet<E> a, final ArraySet<E> b) {
+        return merge(a, b, true, false, false);
+    }
+
+    /**
+     * Returns elements contained in exactly one of {@code a} and {@code b}.
+     *
+     * @param a   first set
+     * @param b   second set with comparator equal to {@code a}'s one
+     * @param <E> the type of elements
+     * @return new {@link ArraySet} with comparator of {@code a}
+     * @see #union(ArraySet, ArraySet)
+     */
+    public static <E> ArraySet<E> symmetricDifference(final ArraySet<E> a, final ArraySet<E> b) {
+        return merge(a, b, true, false, true);
+    }
+
+    private static <E> ArraySet<E> merge(
+            final ArraySet<E> a,
+            final ArraySet<E> b,
+            final boolean onlyA,
+            final boolean both,
+            final boolean onlyB
+    ) {
+        if (!Objects.equals(a.returnedCmp, b.returnedCmp)) {
+            throw new IllegalArgumentException(
+                    "Expected ArraySets with equal comparators!");
+        }
+        final Comparator<? super E> cmp = a.cmp;
+        final List<E> x = a.data;
+        final List<E> y = b.data;
+        final Object[] res = new Object[(onlyA ? x.size() : 0) + (onlyB ? y.size() : 0)
+                + (both && !onlyA && !onlyB ? Math.min(x.size(), y.size()) : 0)];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < x.size() && j < y.size()) {
+            final int c = cmp.compare(x.get(i), y.get(j));
+            if (c < 0) {
+                final int next = gallop(x, i + 1, y.get(j), 0, cmp);
+                size = onlyA ? copy(x, i, next, res, size) : size;
+                i = next;
+            } else if (c > 0) {
+                final int next = gallop(y, j + 1, x.get(i), 0, cmp);
+                size = onlyB ? copy(y, j, next, res, size) : size;
+                j = next;
+            } else {
+                if (both) {
+                    res[size++] = x.get(i);
+                }
+                i++;
+                j++;
+            }
+        }
+        size = onlyA ? copy(x, i, x.size(), res, size) : size;
+        size = onlyB ? copy(y, j, y.size(), res, size) : size;
+        return new ArraySet<>(asList(size == res.length ? res : Arrays.copyOf(res, size)),
+                              cmp, a.returnedCmp);
+    }
+
+    // first index in [from, list.size()] of element, that isn't less (bound = 0)
+    // or isn't less or equal (bound = 1) than key
+    private static <E> int gallop(
+            final List<E> list,
+            final int from,
+            final E key,
+            final int bound,
+            final Comparator<? super E> cmp
+    ) {
+        int l = from;
+        int r = from;
+        int step = 1;
+        while (r < list.size() && cmp.compare(list.get(r), key) < bound) {
+            l = r + 1;
+            r = from + step;
+            step <<= 1;
+        }
+        r = Math.min(r, list.size());
+        while (l < r) {
+            final int m = (l + r) >>> 1;
+            if (cmp.compare(list.get(m), key) < bound) {
+                l = m + 1;
+            } else {
+                r = m;
+            }
+        }
+        return l;
+    }
+
+    private static int copy(
+            final List<?> list,
+            final int from,
+            final int to,
+            final Object[] res,
+            int size
+    ) {
+        for (int i = from; i < to; i++) {
+            res[size++] = list.get(i);
+        }
+        return size;
+    }
+
+    // elements with indices [from, to), a range of a range isn't nested, if it's taken from the same set
+    /*package-private*/ ArraySet<E> range(final int from, final int to) {
+        return new ArraySet<>(data.subList(from, to), cmp, returnedCmp, index, offset + from);
+    }
+
+    private ArraySet<E> subSetUnchecked(
             final E fromElement,
             final boolean fromInclusive, final E toElement,
             final boolean toInclusive
@@ -258,10 +538,12 @@ public class ArraySet<E> extends AbstractList<E> implements List<E>, NavigableSe
         if (l == -1 || r == -1 || l > r) {
             return new ArraySet<>(List.of(), cmp, returnedCmp);
         }
-        return new ArraySet<>(data.subList(l, r + 1), cmp, returnedCmp);
+        return new ArraySet<>(data.subList(l, r + 1), cmp, returnedCmp, index, offset + l);
     }
 
     private final List<E> data;
     private final Comparator<? super E> cmp;
     private final Comparator<? super E> returnedCmp;
+    private final EytzingerIndex<E> index;
+    private final int offset;
 }
\ No newline at end of file
@@ -0,0 +1,61 @@
+package info.kgeorgiy.ja.dmitriev.arrayset;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Copy of a sorted list in Eytzinger (BFS) order.
+ * The first levels of the implicit tree share a few cache lines, so they stay in cache between lookups.
+ * Deeper levels aren't closer than in the list, and every step still reads an element and calls the comparator.
+ *
+ * @param <E> the type of elements
+ * @author Dmitriev Vladislav (bitree2004@yandex.ru)
+ * @since 21
+ */
+/*package-private*/ final class EytzingerIndex<E> {
+    // tree[k] has children tree[2k] and tree[2k + 1], tree[0] is unused
+    private final Object[] tree;
+    private final int[] rank;
+    private final Comparator<? super E> cmp;
+    private int built;
+
+    /*package-private*/ EytzingerIndex(final List<E> sorted, final Comparator<? super E> cmp) {
+        this.tree = new Object[sorted.size() + 1];
+        this.rank = new int[sorted.size() + 1];
+        this.cmp = cmp;
+        build(sorted, 1);
+    }
+
+    private void build(final List<E> sorted, final int k) {
+        if (k < tree.length) {
+            build(sorted, 2 * k);
+            tree[k] = sorted.get(built);
+            rank[k] = built++;
+            build(sorted, 2 * k + 1);
+        }
+    }
+
+    /**
+     * Searches {@code key} among elements with indices in {@code [from, to)}.
+     *
+     * @return the same value as {@link java.util.Collections#binarySearch(List, Object, Comparator)}
+     * called on the sublist {@code [from, to)}
+     */
+    @SuppressWarnings("unchecked")
+    /*package-private*/ int binarySearch(final E key, final int from, final int to) {
+        int k = 1;
+        while (k < tree.length) {
+            k = 2 * k + (cmp.compare((E) tree[k], key) < 0 ? 1 : 0);
+        }
+        // cancel the right turns made after the last left turn
+        k >>= Integer.numberOfTrailingZeros(~k) + 1;
+        final int index = k == 0 ? tree.length - 1 : rank[k];
+        if (index < from) {
+            return -1;
+        }
+        if (index >= to) {
+            return -(to - from) - 1;
+        }
+        return cmp.compare((E) tree[k], key) == 0 ? index - from : -(index - from) - 1;
+    }
+}
@@ -0,0 +1,185 @@
+package info.kgeorgiy.ja.dmitriev.arrayset;
+
+import java.util.Arrays;
+import java.util.NavigableSet;
+import java.util.Objects;
+
+/**
+ * Immutable sorted set of {@code int} values backed by an {@code int[]}.
+ * Navigation is done by {@link Arrays#binarySearch(int[], int, int, int)}
+ * without boxing, {@link NavigableSet} methods are views over the same array.
+ *
+ * @author Dmitriev Vladislav (bitree2004@yandex.ru)
+ * @see ArraySet
+ * @see LongArraySet
+ * @since 21
+ */
+@SuppressWarnings("unused")
+public class IntArraySet extends PrimitiveArraySet<Integer, IntArraySet> {
+    private final int[] data;
+
+    public IntArraySet() {
+        this(new int[0], 0, 0, false);
+    }
+
+    /**
+     * Creates a set of distinct {@code values}, the array is copied.
+     *
+     * @param values elements of the set in any order
+     */
+    public IntArraySet(final int[] values) {
+        this(distinct(values), false);
+    }
+
+    private IntArraySet(final int[] data, final boolean descending) {
+        this(data, 0, data.length, descending);
+    }
+
+    private IntArraySet(
+            final int[] data,
+            final int from,
+            final int to,
+            final boolean descending
+    ) {
+        super(Integer.class, from, to, descending);
+        this.data = data;
+    }
+
+    private static int[] distinct(final int[] values) {
+        final int[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int size = Math.min(sorted.length, 1);
+        for (int i = 1; i < sorted.length; i++) {
+            if (sorted[size - 1] != sorted[i]) {
+                sorted[size++] = sorted[i];
+            }
+        }
+        return size == sorted.length ? sorted : Arrays.copyOf(sorted, size);
+    }
+
+    /**
+     * Returns the element at {@code index} of this set without boxing.
+     *
+     * @param index position in iteration order
+     * @return element at {@code index}
+     * @throws IndexOutOfBoundsException if {@code index} is out of range
+     */
+    public int getInt(final int index) {
+        Objects.checkIndex(index, size());
+        return data[toArrayIndex(index)];
+    }
+
+    /**
+     * Returns index of the greatest element strictly less than {@code e}.
+     *
+     * @param e the value to match
+     * @return index in iteration order or {@code -1} if there is no such element
+     */
+    public int lowerIndex(final int e) {
+        return lowerBySearch(search(e));
+    }
+
+    /**
+     * Returns index of the greatest element less than or equal to {@code e}.
+     *
+     * @param e the value to match
+     * @return index in iteration order or {@code -1} if there is no such element
+     */
+    public int floorIndex(final int e) {
+        return floorBySearch(search(e));
+    }
+
+    /**
+     * Returns index of the least element greater than or equal to {@code e}.
+     *
+     * @param e the value to match
+     * @return index in iteration order or {@code -1} if there is no such element
+     */
+    public int ceilingIndex(final int e) {
+        return ceilingBySearch(search(e));
+    }
+
+    /**
+     * Returns index of the least element strictly greater than {@code e}.
+     *
+     * @param e the value to match
+     * @return index in iteration order or {@code -1} if there is no such element
+     */
+    public int higherIndex(final int e) {
+        return higherBySearch(search(e));
+    }
+
+    public boolean contains(final int e) {
+        return search(e) >= 0;
+    }
+
+    public IntArraySet subSet(
+            final int fromElement,
+            final boolean fromInclusive,
+            final int toElement,
+            final boolean toInclusive
+    ) {
+        if (descending ? fromElement < toElement : fromElement > toElement) {
+            throw new IllegalArgumentException(
+                    "Expected fromElement <= toElement!");
+        }
+        return subSetUnchecked(fromElement, fromInclusive, toElement, toInclusive);
+    }
+
+    public IntArraySet headSet(final int toElement, final boolean inclusive) {
+        if (isEmpty()) {
+            return this;
+        }
+        return subSetUnchecked(getInt(0), true, toElement, inclusive);
+    }
+
+    public IntArraySet tailSet(final int fromElement, final boolean inclusive) {
+        if (isEmpty()) {
+            return this;
+        }
+        return subSetUnchecked(fromElement, inclusive, getInt(size() - 1), true);
+    }
+
+    /**
+     * Returns elements of this set in iteration order.
+     *
+     * @return a new array
+     */
+    public int[] toIntArray() {
+        final int[] res = new int[size()];
+        for (int i = 0; i < res.length; i++) {
+            res[i] = data[toArrayIndex(i)];
+        }
+        return res;
+    }
+
+    private int search(final int e) {
+        return Arrays.binarySearch(data, from, to, e);
+    }
+
+    private IntArraySet subSetUnchecked(
+            final int fromElement,
+            final boolean fromInclusive,
+            final int toElement,
+            final boolean toInclusive
+    ) {
+        final int l = fromInclusive ? ceilingIndex(fromElement) : higherIndex(fromElement);
+        final int r = toInclusive ? floorIndex(toElement) : lowerIndex(toElement);
+        return view(l, r);
+    }
+
+    @Override
+    /*package-private*/ int search(final Integer e) {
+        return search((int) e);
+    }
+
+    @Override
+    /*package-private*/ Integer element(final int arrayIndex) {
+        return data[arrayIndex];
+    }
+
+    @Override
+    /*package-private*/ IntArraySet create(final int from, final int to, final boolean descending) {
+        return new IntArraySet(data, from, to, descending);
+    }
+}
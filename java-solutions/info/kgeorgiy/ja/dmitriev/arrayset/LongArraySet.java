@@ -0,0 +1,185 @@
+package info.kgeorgiy.ja.dmitriev.arrayset;
+
+import java.util.Arrays;
+import java.util.NavigableSet;
+import java.util.Objects;
+
+/**
+ * Immutable sorted set of {@code long} values backed by a {@code long[]}.
+ * Navigation is done by {@link Arrays#binarySearch(long[], int, int, long)}
+ * without boxing, {@link NavigableSet} methods are views over the same array.
+ *
+ * @author Dmitriev Vladislav (bitree2004@yandex.ru)
+ * @see ArraySet
+ * @see IntArraySet
+ * @since 21
+ */
+@SuppressWarnings("unused")
+public class LongArraySet extends PrimitiveArraySet<Long, LongArraySet> {
+    private final long[] data;
+
+    public LongArraySet() {
+        this(new long[0], 0, 0, false);
+    }
+
+    /**
+     * Creates a set of distinct {@code values}, the array is copied.
+     *
+     * @param values elements of the set in any order
+     */
+    public LongArraySet(final long[] values) {
+        this(distinct(values), false);
+    }
+
+    private LongArraySet(final long[] data, final boolean descending) {
+        this(data, 0, data.length, descending);
+    }
+
+    private LongArraySet(
+            final long[] data,
+            final int from,
+            final int to,
+            final boolean descending
+    ) {
+        super(Long.class, from, to, descending);
+        this.data = data;
+    }
+
+    private static long[] distinct(final long[] values) {
+        final long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int size = Math.min(sorted.length, 1);
+        for (int i = 1; i < sorted.length; i++) {
+            if (sorted[size - 1] != sorted[i]) {
+                sorted[size++] = sorted[i];
+            }
+        }
+        return size == sorted.length ? sorted : Arrays.copyOf(sorted, size);
+    }
+
+    /**
+     * Returns the element at {@code index} of this set without boxing.
+     *
+     * @param index position in iteration order
+     * @return element at {@code index}
+     * @throws IndexOutOfBoundsException if {@code index} is out of range
+     */
+    public long getLong(final int index) {
+        Objects.checkIndex(index, size());
+        return data[toArrayIndex(index)];
+    }
+
+    /**
+     * Returns index of the greatest element strictly less than {@code e}.
+     *
+     * @param e the value to match
+     * @return index in iteration order or {@code -1} if there is no such element
+     */
+    public int lowerIndex(final long e) {
+        return lowerBySearch(search(e));
+    }
+
+    /**
+     * Returns index of the greatest element less than or equal to {@code e}.
+     *
+     * @param e the value to match
+     * @return index in iteration order or {@code -1} if there is no such element
+     */
+    public int floorIndex(final long e) {
+        return floorBySearch(search(e));
+    }
+
+    /**
+     * Returns index of the least element greater than or equal to {@code e}.
+     *
+     * @param e the value to match
+     * @return index in iteration order or {@code -1} if there is no such element
+     */
+    public int ceilingIndex(final long e) {
+        return ceilingBySearch(search(e));
+    }
+
+    /**
+     * Returns index of the least element strictly greater than {@code e}.
+     *
+     * @param e the value to match
+     * @return index in iteration order or {@code -1} if there is no such element
+     */
+    public int higherIndex(final long e) {
+        return higherBySearch(search(e));
+    }
+
+    public boolean contains(final long e) {
+        return search(e) >= 0;
+    }
+
+    public LongArraySet subSet(
+            final long fromElement,
+            final boolean fromInclusive,
+            final long toElement,
+            final boolean toInclusive
+    ) {
+        if (descending ? fromElement < toElement : fromElement > toElement) {
+            throw new IllegalArgumentException(
+                    "Expected fromElement <= toElement!");
+        }
+        return subSetUnchecked(fromElement, fromInclusive, toElement, toInclusive);
+    }
+
+    public LongArraySet headSet(final long toElement, final boolean inclusive) {
+        if (isEmpty()) {
+            return this;
+        }
+        return subSetUnchecked(getLong(0), true, toElement, inclusive);
+    }
+
+    public LongArraySet tailSet(final long fromElement, final boolean inclusive) {
+        if (isEmpty()) {
+            return this;
+        }
+        return subSetUnchecked(fromElement, inclusive, getLong(size() - 1), true);
+    }
+
+    /**
+     * Returns elements of this set in iteration order.
+     *
+     * @return a new array
+     */
+    public long[] toLongArray() {
+        final long[] res = new long[size()];
+        for (int i = 0; i < res.length; i++) {
+            res[i] = data[toArrayIndex(i)];
+        }
+        return res;
+    }
+
+    private int search(final long e) {
+        return Arrays.binarySearch(data, from, to, e);
+    }
+
+    private LongArraySet subSetUnchecked(
+            final long fromElement,
+            final boolean fromInclusive,
+            final long toElement,
+            final boolean toInclusive
+    ) {
+        final int l = fromInclusive ? ceilingIndex(fromElement) : higherIndex(fromElement);
+        final int r = toInclusive ? floorIndex(toElement) : lowerIndex(toElement);
+        return view(l, r);
+    }
+
+    @Override
+    /*package-private*/ int search(final Long e) {
+        return search((long) e);
+    }
+
+    @Override
+    /*package-private*/ Long element(final int arrayIndex) {
+        return data[arrayIndex];
+    }
+
+    @Override
+    /*package-private*/ LongArraySet create(final int from, final int to, final boolean descending) {
+        return new LongArraySet(data, from, to, descending);
+    }
+}
@@ -0,0 +1,385 @@
+package info.kgeorgiy.ja.dmitriev.arrayset;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Mutable sorted set on top of {@link ArraySet}.
+ * Changes are buffered in two small {@link TreeSet}s: inserted elements, that are absent in
+ * the array, and removed elements, that are present in it. When the buffer grows
+ * large, it is merged into a new array by {@link ArraySet#union(ArraySet, ArraySet)}
+ * and {@link ArraySet#difference(ArraySet, ArraySet)}, so inserts are amortized.
+ * Removal of the first or the last element of the array shrinks the array view instead,
+ * so draining the set by {@link #pollFirst()} or {@link #pollLast()} doesn't leave removed elements to skip.
+ * The view is always taken from the merged array, and the array is copied, when less than half of it is used,
+ * so a drained set doesn't keep its original array.
+ * <p>
+ * Subsets and the descending set are views of {@link #freeze()}: they are immutable snapshots,
+ * later changes of this set aren't reflected in them.
+ *
+ * @param <E> the type of elements
+ * @author Dmitriev Vladislav (bitree2004@yandex.ru)
+ * @see ArraySet
+ * @since 21
+ */
+@SuppressWarnings("unused")
+public class MutableArraySet<E> extends AbstractSet<E> implements NavigableSet<E> {
+    private static final int MIN_PENDING = 256;
+    private static final int PENDING_FRACTION = 16;
+    private static final int MIN_SKIPPED = 16;
+
+    private final Comparator<? super E> cmp;
+    private final Comparator<? super E> returnedCmp;
+    private final TreeSet<E> inserted;
+    private final TreeSet<E> removed;
+    // merged array, base is its range [from, to)
+    private ArraySet<E> merged;
+    private int from;
+    private int to;
+    private ArraySet<E> base;
+    private int size;
+
+    public MutableArraySet() {
+        this(List.of(), null);
+    }
+
+    public MutableArraySet(final Comparator<? super E> comparator) {
+        this(List.of(), comparator);
+    }
+
+    public MutableArraySet(
+            final Collection<? extends E> c,
+            final Comparator<? super E> comparator
+    ) {
+        this.cmp = Collections.reverseOrder(Collections.reverseOrder(comparator));
+        this.returnedCmp = comparator;
+        this.inserted = new TreeSet<>(comparator);
+        this.removed = new TreeSet<>(comparator);
+        rebuild(new ArraySet<>(c, comparator));
+    }
+
+    private void rebuild(final ArraySet<E> array) {
+        merged = array;
+        from = 0;
+        to = array.size();
+        base = array;
+        size = array.size() + inserted.size() - removed.size();
+    }
+
+    // keeps [from, to) of the merged array, copying it, when less than half of the array is kept
+    private void shrink(final int from, final int to) {
+        if (to - from < merged.size() / 2) {
+            rebuild(new ArraySet<>(merged.range(from, to), returnedCmp));
+        } else {
+            this.from = from;
+            this.to = to;
+            base = merged.range(from, to);
+        }
+    }
+
+    /**
+     * Returns immutable snapshot of this set.
+     * The array is reused as is, if there are no pending changes.
+     *
+     * @return {@link ArraySet} with the same elements and comparator
+     */
+    public ArraySet<E> freeze() {
+        flush();
+        return base;
+    }
+
+    /**
+     * Merges pending changes into the array.
+     */
+    public void flush() {
+        ArraySet<E> res = base;
+        if (!removed.isEmpty()) {
+            res = ArraySet.difference(res, new ArraySet<>(removed, returnedCmp));
+            removed.clear();
+        }
+        if (!inserted.isEmpty()) {
+            res = ArraySet.union(res, new ArraySet<>(inserted, returnedCmp));
+            inserted.clear();
+        }
+        if (res != base) {
+            rebuild(res);
+        }
+    }
+
+    private void flushIfFull() {
+        if (inserted.size() + removed.size() > Math.max(MIN_PENDING, base.size() / PENDING_FRACTION)) {
+            flush();
+        }
+    }
+
+    @Override
+    public boolean add(final E e) {
+        if (removed.remove(e)) {
+            size++;
+            return true;
+        }
+        if (inserted.contains(e) || base.contains(e)) {
+            return false;
+        }
+        inserted.add(e);
+        size++;
+        flushIfFull();
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean remove(final Object o) {
+        if (inserted.remove(o)) {
+            size--;
+            return true;
+        }
+        if (removed.contains(o) || !base.contains(o)) {
+            return false;
+        }
+        size--;
+        final E e = (E) o;
+        if (cmp.compare(e, base.first()) == 0 || cmp.compare(e, base.last()) == 0) {
+            removed.add(e);
+            trim();
+        } else {
+            removed.add(e);
+            flushIfFull();
+        }
+        return true;
+    }
+
+    // drops removed elements from ends of the array, so its first and last elements are present
+    private void trim() {
+        int l = from;
+        int r = to;
+        while (l < r && removed.remove(merged.get(l))) {
+            l++;
+        }
+        while (l < r && removed.remove(merged.get(r - 1))) {
+            r--;
+        }
+        shrink(l, r);
+    }
+
+    @Override
+    public boolean contains(final Object o) {
+        return inserted.contains(o) || !removed.contains(o) && base.contains(o);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        inserted.clear();
+        removed.clear();
+        rebuild(new ArraySet<>(List.of(), returnedCmp));
+    }
+
+    /**
+     * Returns an iterator over a snapshot of this set.
+     * Pending changes are merged first, {@link Iterator#remove()} removes the last returned element from this set.
+     *
+     * @return iterator in ascending order
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return removing(freeze().iterator());
+    }
+
+    /**
+     * Returns an iterator over a snapshot of this set in descending order.
+     *
+     * @return iterator in descending order
+     * @see #iterator()
+     */
+    @Override
+    public Iterator<E> descendingIterator() {
+        return removing(freeze().descendingIterator());
+    }
+
+    private Iterator<E> removing(final Iterator<E> snapshot) {
+        return new Iterator<>() {
+            private E last;
+            private boolean removable;
+
+            @Override
+            public boolean hasNext() {
+                return snapshot.hasNext();
+            }
+
+            @Override
+            public E next() {
+                last = snapshot.next();
+                removable = true;
+                return last;
+            }
+
+            @Override
+            public void remove() {
+                if (!removable) {
+                    throw new IllegalStateException();
+                }
+                removable = false;
+                MutableArraySet.this.remove(last);
+            }
+        };
+    }
+
+    @Override
+    public Comparator<? super E> comparator() {
+        return returnedCmp;
+    }
+
+    @Override
+    public E lower(final E e) {
+        return nearest(() -> inserted.lower(e), () -> base.lower(e), false);
+    }
+
+    @Override
+    public E floor(final E e) {
+        return nearest(() -> inserted.floor(e), () -> base.floor(e), false);
+    }
+
+    @Override
+    public E ceiling(final E e) {
+        return nearest(() -> inserted.ceiling(e), () -> base.ceiling(e), true);
+    }
+
+    @Override
+    public E higher(final E e) {
+        return nearest(() -> inserted.higher(e), () -> base.higher(e), true);
+    }
+
+    @Override
+    public E first() {
+        return checkNotEmpty(nearest(
+                () -> inserted.isEmpty() ? null : inserted.first(),
+                () -> base.isEmpty() ? null : base.first(),
+                true
+        ));
+    }
+
+    @Override
+    public E last() {
+        return checkNotEmpty(nearest(
+                () -> inserted.isEmpty() ? null : inserted.last(),
+                () -> base.isEmpty() ? null : base.last(),
+                false
+        ));
+    }
+
+    @Override
+    public E pollFirst() {
+        return isEmpty() ? null : poll(first());
+    }
+
+    @Override
+    public E pollLast() {
+        return isEmpty() ? null : poll(last());
+    }
+
+    /**
+     * Returns immutable snapshot of this set in descending order.
+     *
+     * @return descending view of {@link #freeze()}
+     */
+    @Override
+    public NavigableSet<E> descendingSet() {
+        return freeze().descendingSet();
+    }
+
+    /**
+     * Returns immutable snapshot of a range of this set.
+     *
+     * @return subset of {@link #freeze()}
+     */
+    @Override
+    public NavigableSet<E> subSet(
+            final E fromElement,
+            final boolean fromInclusive,
+            final E toElement,
+            final boolean toInclusive
+    ) {
+        return freeze().subSet(fromElement, fromInclusive, toElement, toInclusive);
+    }
+
+    /**
+     * Returns immutable snapshot of elements of this set less than {@code toElement}.
+     *
+     * @return head set of {@link #freeze()}
+     */
+    @Override
+    public NavigableSet<E> headSet(final E toElement, final boolean inclusive) {
+        return freeze().headSet(toElement, inclusive);
+    }
+
+    /**
+     * Returns immutable snapshot of elements of this set greater than {@code fromElement}.
+     *
+     * @return tail set of {@link #freeze()}
+     */
+    @Override
+    public NavigableSet<E> tailSet(final E fromElement, final boolean inclusive) {
+        return freeze().tailSet(fromElement, inclusive);
+    }
+
+    @Override
+    public SortedSet<E> subSet(final E fromElement, final E toElement) {
+        return subSet(fromElement, true, toElement, false);
+    }
+
+    @Override
+    public SortedSet<E> headSet(final E toElement) {
+        return headSet(toElement, false);
+    }
+
+    @Override
+    public SortedSet<E> tailSet(final E fromElement) {
+        return tailSet(fromElement, true);
+    }
+
+    private E poll(final E e) {
+        remove(e);
+        return e;
+    }
+
+    private E checkNotEmpty(final E e) {
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return e;
+    }
+
+    // the best of candidates from both layers, skipping removed elements of the array
+    private E nearest(
+            final Supplier<E> insertedCandidate,
+            final Supplier<E> baseCandidate,
+            final boolean ascending
+    ) {
+        E fromBase = baseCandidate.get();
+        if (fromBase != null && removed.contains(fromBase)) {
+            // a query skips at most about sqrt(n) / 2 removed elements, and a flush is paid by as many removals
+            final int maxSkipped = Math.max(MIN_SKIPPED, (int) Math.sqrt(base.size()) / 2);
+            final int step = ascending ? 1 : -1;
+            int i = base.indexOf(fromBase);
+            for (int skipped = 0; fromBase != null && removed.contains(fromBase); skipped++) {
+                if (skipped == maxSkipped) {
+                    flush();
+                    return nearest(insertedCandidate, baseCandidate, ascending);
+                }
+                i += step;
+                fromBase = 0 <= i && i < base.size() ? base.get(i) : null;
+            }
+        }
+        final E fromInserted = insertedCandidate.get();
+        if (fromInserted == null || fromBase == null) {
+            return fromInserted == null ? fromBase : fromInserted;
+        }
+        final int res = cmp.compare(fromInserted, fromBase);
+        return (ascending ? res < 0 : res > 0) ? fromInserted : fromBase;
+    }
+}
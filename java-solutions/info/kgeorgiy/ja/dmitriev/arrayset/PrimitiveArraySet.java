@@ -0,0 +1,289 @@
+package info.kgeorgiy.ja.dmitriev.arrayset;
+
+import java.util.*;
+
+/**
+ * Common part of {@link IntArraySet} and {@link LongArraySet}: a view of range {@code [from, to)}
+ * of a sorted primitive array in ascending or descending order.
+ * Subclasses own the array and search it, this class turns results of
+ * {@link Arrays#binarySearch(int[], int, int, int)} into indices and implements boxed {@link NavigableSet} methods.
+ *
+ * @param <E> the boxed type of elements
+ * @param <S> the type of views
+ * @author Dmitriev Vladislav (bitree2004@yandex.ru)
+ * @since 21
+ */
+/*package-private*/ abstract class PrimitiveArraySet<E extends Comparable<? super E>, S extends PrimitiveArraySet<E, S>>
+        extends AbstractList<E> implements List<E>, NavigableSet<E> {
+    /*package-private*/ final int from;
+    /*package-private*/ final int to;
+    /*package-private*/ final boolean descending;
+    private final Class<E> type;
+
+    /*package-private*/ PrimitiveArraySet(
+            final Class<E> type,
+            final int from,
+            final int to,
+            final boolean descending
+    ) {
+        this.type = type;
+        this.from = from;
+        this.to = to;
+        this.descending = descending;
+    }
+
+    // binary search of e in [from, to) of the ascending array
+    /*package-private*/ abstract int search(E e);
+
+    /*package-private*/ abstract E element(int arrayIndex);
+
+    /*package-private*/ abstract S create(int from, int to, boolean descending);
+
+    /*package-private*/ int lowerBySearch(final int res) {
+        return toIndex(descending ? arrayHigher(res) : arrayLower(res));
+    }
+
+    /*package-private*/ int floorBySearch(final int res) {
+        return toIndex(descending ? arrayCeiling(res) : arrayFloor(res));
+    }
+
+    /*package-private*/ int ceilingBySearch(final int res) {
+        return toIndex(descending ? arrayFloor(res) : arrayCeiling(res));
+    }
+
+    /*package-private*/ int higherBySearch(final int res) {
+        return toIndex(descending ? arrayLower(res) : arrayHigher(res));
+    }
+
+    /*package-private*/ int toArrayIndex(final int index) {
+        return descending ? to - 1 - index : from + index;
+    }
+
+    // view of elements with indices [l, r] in iteration order, -1 means there is no such element
+    /*package-private*/ S view(final int l, final int r) {
+        if (l == -1 || r == -1 || l > r) {
+            return create(from, from, descending);
+        }
+        return descending
+                ? create(to - 1 - r, to - l, true)
+                : create(from + l, from + r + 1, false);
+    }
+
+    private int toIndex(final int arrayIndex) {
+        if (arrayIndex < from || to <= arrayIndex) {
+            return -1;
+        }
+        return descending ? to - 1 - arrayIndex : arrayIndex - from;
+    }
+
+    private static int arrayLower(final int res) {
+        return (res < 0 ? -(res + 1) : res) - 1;
+    }
+
+    private static int arrayFloor(final int res) {
+        return res < 0 ? -(res + 1) - 1 : res;
+    }
+
+    private static int arrayCeiling(final int res) {
+        return res < 0 ? -(res + 1) : res;
+    }
+
+    private static int arrayHigher(final int res) {
+        return res < 0 ? -(res + 1) : res + 1;
+    }
+
+    private UnsupportedOperationException unsupported(final String method) {
+        return new UnsupportedOperationException(
+                "Error: " + getClass().getSimpleName() + " doesn't support " + method + "!");
+    }
+
+    @Override
+    public E lower(final E e) {
+        return get(lowerBySearch(search(e)));
+    }
+
+    @Override
+    public E floor(final E e) {
+        return get(floorBySearch(search(e)));
+    }
+
+    @Override
+    public E ceiling(final E e) {
+        return get(ceilingBySearch(search(e)));
+    }
+
+    @Override
+    public E higher(final E e) {
+        return get(higherBySearch(search(e)));
+    }
+
+    @Override
+    public E pollFirst() {
+        throw unsupported("pollFirst");
+    }
+
+    @Override
+    public E pollLast() {
+        throw unsupported("pollLast");
+    }
+
+    @Override
+    public Iterator<E> descendingIterator() {
+        return descendingSet().iterator();
+    }
+
+    @Override
+    public S descendingSet() {
+        return create(from, to, !descending);
+    }
+
+    @Override
+    public S reversed() {
+        return descendingSet();
+    }
+
+    @Override
+    public S subSet(
+            final E fromElement,
+            final boolean fromInclusive,
+            final E toElement,
+            final boolean toInclusive
+    ) {
+        final int c = fromElement.compareTo(toElement);
+        if (descending ? c < 0 : c > 0) {
+            throw new IllegalArgumentException(
+                    "Expected fromElement <= toElement!");
+        }
+        return subSetUnchecked(fromElement, fromInclusive, toElement, toInclusive);
+    }
+
+    @Override
+    public S headSet(final E toElement, final boolean inclusive) {
+        if (isEmpty()) {
+            return create(from, to, descending);
+        }
+        return subSetUnchecked(getFirst(), true, toElement, inclusive);
+    }
+
+    @Override
+    public S tailSet(final E fromElement, final boolean inclusive) {
+        if (isEmpty()) {
+            return create(from, to, descending);
+        }
+        return subSetUnchecked(fromElement, inclusive, getLast(), true);
+    }
+
+    private S subSetUnchecked(
+            final E fromElement,
+            final boolean fromInclusive,
+            final E toElement,
+            final boolean toInclusive
+    ) {
+        final int l = fromInclusive ? ceilingBySearch(search(fromElement)) : higherBySearch(search(fromElement));
+        final int r = toInclusive ? floorBySearch(search(toElement)) : lowerBySearch(search(toElement));
+        return view(l, r);
+    }
+
+    @Override
+    public SortedSet<E> subSet(final E fromElement, final E toElement) {
+        return subSet(fromElement, true, toElement, false);
+    }
+
+    @Override
+    public SortedSet<E> headSet(final E toElement) {
+        return headSet(toElement, false);
+    }
+
+    @Override
+    public SortedSet<E> tailSet(final E fromElement) {
+        return tailSet(fromElement, true);
+    }
+
+    @Override
+    public Comparator<? super E> comparator() {
+        return descending ? Collections.reverseOrder() : null;
+    }
+
+    @Override
+    public E removeFirst() {
+        throw unsupported("removeFirst");
+    }
+
+    @Override
+    public E removeLast() {
+        throw unsupported("removeLast");
+    }
+
+    @Override
+    public void addFirst(final E e) {
+        throw unsupported("addFirst");
+    }
+
+    @Override
+    public void addLast(final E e) {
+        throw unsupported("addLast");
+    }
+
+    @Override
+    public E first() {
+        return getFirst();
+    }
+
+    @Override
+    public E last() {
+        return getLast();
+    }
+
+    @Override
+    public E getFirst() {
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return element(toArrayIndex(0));
+    }
+
+    @Override
+    public E getLast() {
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return element(toArrayIndex(size() - 1));
+    }
+
+    @Override
+    public Spliterator<E> spliterator() {
+        return super.spliterator();
+    }
+
+    @Override
+    public int size() {
+        return to - from;
+    }
+
+    @Override
+    public boolean contains(final Object o) {
+        return type.isInstance(o) && search(type.cast(o)) >= 0;
+    }
+
+    @Override
+    public E get(final int index) {
+        if (0 <= index && index < size()) {
+            return element(toArrayIndex(index));
+        }
+        return null;
+    }
+
+    @Override
+    public int indexOf(final Object o) {
+        if (type.isInstance(o)) {
+            final int res = search(type.cast(o));
+            return res >= 0 ? toIndex(res) : -1;
+        }
+        return -1;
+    }
+
+    @Override
+    public int lastIndexOf(final Object o) {
+        return indexOf(o);
+    }
+}
@@ -0,0 +1,82 @@
+package info.kgeorgiy.ja.dmitriev.arrayset.test;
+
+import info.kgeorgiy.ja.dmitriev.arrayset.ArraySet;
+import info.kgeorgiy.ja.dmitriev.arrayset.IntArraySet;
+import info.kgeorgiy.ja.dmitriev.arrayset.LongArraySet;
+
+import java.util.*;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Measures throughput of {@code floor} point queries of sets of random integers:
+ * primitive sets, {@link ArraySet} and {@link ArraySet#readOptimized read-optimized} {@link ArraySet}.
+ * JMH isn't available to this module, so every case is warmed up and then timed
+ * by {@link System#nanoTime()}, the best of several rounds is printed.
+ * <p>
+ * Usage: {@code ArraySetBenchmark [size...]}, default sizes are {@code 1000} and {@code 1000000}.
+ *
+ * @author Dmitriev Vladislav (bitree2004@yandex.ru)
+ * @since 21
+ */
+public final class ArraySetBenchmark {
+    private static final int QUERIES = 1 << 20;
+    private static final int ROUNDS = 7;
+
+    private ArraySetBenchmark() {
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args sizes of sets
+     */
+    public static void main(final String... args) {
+        final int[] sizes = args.length == 0
+                ? new int[]{1_000, 1_000_000}
+                : Arrays.stream(args).mapToInt(Integer::parseInt).toArray();
+        for (final int size : sizes) {
+            run(size);
+        }
+    }
+
+    private static void run(final int size) {
+        final Random random = new Random(size);
+        final int[] values = random.ints(size).toArray();
+        final int[] probes = random.ints(QUERIES).toArray();
+        final List<Integer> boxed = Arrays.stream(values).boxed().toList();
+
+        final var ints = new IntArraySet(values);
+        final var longs = new LongArraySet(Arrays.stream(values).asLongStream().toArray());
+        final var arraySet = new ArraySet<>(boxed, Comparator.<Integer>naturalOrder());
+        final var readOptimized = ArraySet.readOptimized(boxed, Comparator.<Integer>naturalOrder());
+        final List<Integer> boxedProbes = Arrays.stream(probes).boxed().toList();
+
+        System.out.printf("size %,d%n", size);
+        measure("IntArraySet.floorIndex", i -> ints.floorIndex(probes[i]));
+        measure("LongArraySet.floorIndex", i -> longs.floorIndex(probes[i]));
+        measure("ArraySet.floor", i -> {
+            final Integer res = arraySet.floor(boxedProbes.get(i));
+            return res == null ? 0 : res;
+        });
+        measure("ArraySet.readOptimized.floor", i -> {
+            final Integer res = readOptimized.floor(boxedProbes.get(i));
+            return res == null ? 0 : res;
+        });
+    }
+
+    private static void measure(final String name, final IntUnaryOperator query) {
+        long best = Long.MAX_VALUE;
+        int sink = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            final long start = System.nanoTime();
+            for (int i = 0; i < QUERIES; i++) {
+                sink += query.applyAsInt(i);
+            }
+            // the first rounds are warm-up
+            if (round >= 2) {
+                best = Math.min(best, System.nanoTime() - start);
+            }
+        }
+        System.out.printf("    %-28s %8.1f ns/query (%d)%n", name, (double) best / QUERIES, sink & 1);
+    }
+}
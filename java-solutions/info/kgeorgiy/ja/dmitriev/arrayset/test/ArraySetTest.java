@@ -0,0 +1,163 @@
+package info.kgeorgiy.ja.dmitriev.arrayset.test;
+
+import info.kgeorgiy.ja.dmitriev.arrayset.ArraySet;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.function.BiFunction;
+import java.util.function.UnaryOperator;
+
+/**
+ * Tests of {@link ArraySet} against {@link TreeSet}.
+ *
+ * @author Dmitriev Vladislav (bitree2004@yandex.ru)
+ * @since 21
+ */
+public class ArraySetTest extends CommonTest {
+    /**
+     * Checks navigation and subsets of a set of values in random order.
+     */
+    @Test
+    public void test1_navigation() {
+        for (final var comparator : COMPARATORS) {
+            for (int i = 0; i < NUMBER_OF_ITERATION; i++) {
+                final List<Integer> values = randomValues(random.nextInt(100));
+                final var set = new ArraySet<>(values, comparator);
+                final var expected = treeSet(values, comparator);
+                checkIntegers(set, expected);
+                if (!expected.isEmpty()) {
+                    final Integer middle = expected.ceiling(values.get(random.nextInt(values.size())));
+                    checkIntegers(set.tailSet(middle, false), expected.tailSet(middle, false));
+                    checkIntegers(set.headSet(middle, true), expected.headSet(middle, true));
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks construction from already sorted input: sorted lists with and without repeats,
+     * sorted sets with the same and with another comparator.
+     */
+    @Test
+    public void test2_sortedInput() {
+        for (final var comparator : COMPARATORS) {
+            for (int i = 0; i < NUMBER_OF_ITERATION; i++) {
+                final List<Integer> values = randomValues(random.nextInt(100));
+                final var expected = treeSet(values, comparator);
+                final List<Integer> sorted = new ArrayList<>(values);
+                sorted.sort(comparator);
+                checkIntegers(new ArraySet<>(sorted, comparator), expected);
+                checkIntegers(new ArraySet<>(expected, comparator), expected);
+                checkIntegers(new ArraySet<>(expected.descendingSet(), comparator), expected);
+                checkIntegers(new ArraySet<>(new ArrayList<>(expected), comparator), expected);
+            }
+        }
+        Assertions.assertThrows(ClassCastException.class, () -> new ArraySet<Object>(List.of(new Object())));
+    }
+
+    /**
+     * Checks set operations, including operands of very different sizes, for which merge gallops.
+     */
+    @Test
+    public void test3_setOperations() {
+        for (final var comparator : COMPARATORS) {
+            for (int i = 0; i < NUMBER_OF_ITERATION; i++) {
+                final var a = new ArraySet<>(randomValues(random.nextInt(i % 2 == 0 ? 10 : 1000)), comparator);
+                final var b = new ArraySet<>(randomValues(random.nextInt(1000)), comparator);
+                checkOperation(ArraySet::union, a, b, (x, y) -> {
+                    final var res = treeSet(x, comparator);
+                    res.addAll(y);
+                    return res;
+                });
+                checkOperation(ArraySet::intersection, a, b, (x, y) -> {
+                    final var res = treeSet(x, comparator);
+                    res.retainAll(y);
+                    return res;
+                });
+                checkOperation(ArraySet::difference, a, b, (x, y) -> {
+                    final var res = treeSet(x, comparator);
+                    res.removeAll(y);
+                    return res;
+                });
+                checkOperation(ArraySet::symmetricDifference, a, b, (x, y) -> {
+                    final var res = treeSet(x, comparator);
+                    res.addAll(y);
+                    res.removeIf(e -> x.contains(e) && y.contains(e));
+                    return res;
+                });
+            }
+        }
+    }
+
+    /**
+     * Checks navigation of read-optimized sets, including large sets and their ascending and descending subsets.
+     */
+    @Test
+    public void test4_readOptimized() {
+        for (final var comparator : COMPARATORS) {
+            for (final int size : new int[]{0, 1, 2, 7, 100, 10_000}) {
+                final List<Integer> values = randomValues(size);
+                final var set = ArraySet.readOptimized(values, comparator);
+                final var expected = treeSet(values, comparator);
+                checkIntegers(set, expected);
+                if (!expected.isEmpty()) {
+                    final Integer middle = expected.ceiling(values.get(random.nextInt(values.size())));
+                    checkIntegers(set.tailSet(middle, false), expected.tailSet(middle, false));
+                    checkIntegers(set.headSet(middle, true), expected.headSet(middle, true));
+                    checkIntegers(set.descendingSet().headSet(middle, false),
+                                  expected.descendingSet().headSet(middle, false));
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks batch lookups with sorted probes on ordinary and read-optimized sets.
+     */
+    @Test
+    public void test5_searchAll() {
+        for (final var comparator : COMPARATORS) {
+            for (int i = 0; i < NUMBER_OF_ITERATION; i++) {
+                final List<Integer> values = randomValues(random.nextInt(1000));
+                final var set = i % 2 == 0
+                        ? new ArraySet<>(values, comparator)
+                        : ArraySet.readOptimized(values, comparator);
+                final var expected = treeSet(values, comparator);
+                final List<Integer> probes = randomValues(random.nextInt(300));
+                probes.sort(comparator);
+                checkSearchAll(set, probes, set.lowerAll(probes), expected::lower);
+                checkSearchAll(set, probes, set.floorAll(probes), expected::floor);
+                checkSearchAll(set, probes, set.ceilingAll(probes), expected::ceiling);
+                checkSearchAll(set, probes, set.higherAll(probes), expected::higher);
+            }
+        }
+        Assertions.assertThrows(IllegalArgumentException.class,
+                                () -> new ArraySet<>(List.of(1, 2, 3)).lowerAll(List.of(3, 1)));
+    }
+
+    private static void checkOperation(
+            final BiFunction<ArraySet<Integer>, ArraySet<Integer>, ArraySet<Integer>> operation,
+            final ArraySet<Integer> a,
+            final ArraySet<Integer> b,
+            final BiFunction<ArraySet<Integer>, ArraySet<Integer>, TreeSet<Integer>> expected
+    ) {
+        for (final var args : List.of(List.of(a, b), List.of(b, a), List.of(a, a))) {
+            final var res = operation.apply(args.get(0), args.get(1));
+            checkIntegers(res, expected.apply(args.get(0), args.get(1)));
+            Assertions.assertEquals(a.comparator(), res.comparator());
+        }
+    }
+
+    private static void checkSearchAll(
+            final ArraySet<Integer> set,
+            final List<Integer> probes,
+            final int[] indices,
+            final UnaryOperator<Integer> expected
+    ) {
+        Assertions.assertEquals(probes.size(), indices.length);
+        for (int i = 0; i < indices.length; i++) {
+            Assertions.assertEquals(expected.apply(probes.get(i)), indices[i] < 0 ? null : set.get(indices[i]));
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package info.kgeorgiy.ja.dmitriev.arrayset.test;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.TestMethodOrder;
+
+import java.util.*;
+
+/**
+ * A class for reducing copy-paste in tests of sets. Must be the ancestor of all tests.
+ *
+ * @author Dmitriev Vladislav (bitree2004@yandex.ru)
+ * @since 21
+ */
+@TestMethodOrder(MethodOrderer.MethodName.class)
+public class CommonTest {
+    /**
+     * Random for generating sets and probes.
+     */
+    protected static final Random random = new Random(12);
+    /**
+     * Comparators of sets in tests, {@code null} is natural ordering.
+     */
+    protected static final List<Comparator<Integer>> COMPARATORS =
+            Arrays.asList(null, Comparator.reverseOrder(),
+                          Comparator.<Integer>comparingInt(x -> x & 7).thenComparing(Comparator.naturalOrder()));
+    /**
+     * How many tests will be run.
+     */
+    protected static final int NUMBER_OF_ITERATION = 50;
+
+    /**
+     * Returns {@code size} random values from {@code [-size, size]}, so about a third of them are repeated.
+     *
+     * @param size number of values
+     * @return mutable list of values
+     */
+    protected static List<Integer> randomValues(final int size) {
+        final List<Integer> res = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            res.add(random.nextInt(2 * size + 1) - size);
+        }
+        return res;
+    }
+
+    /**
+     * Returns the reference set of {@code values}.
+     *
+     * @param values     elements of the set
+     * @param comparator comparator of the set or {@code null} for natural ordering
+     * @param <E>        the type of elements
+     * @return new {@link TreeSet}
+     */
+    protected static <E> TreeSet<E> treeSet(
+            final Collection<? extends E> values,
+            final Comparator<? super E> comparator
+    ) {
+        final var res = new TreeSet<E>(comparator);
+        res.addAll(values);
+        return res;
+    }
+
+    /**
+     * Checks order, size and navigation of {@code set} on its own elements.
+     *
+     * @param set      the tested set
+     * @param expected the reference set
+     * @param <E>      the type of elements
+     */
+    protected static <E> void checkNavigation(final NavigableSet<E> set, final NavigableSet<E> expected) {
+        Assertions.assertEquals(new ArrayList<>(expected), new ArrayList<>(set));
+        Assertions.assertEquals(new ArrayList<>(expected.descendingSet()), new ArrayList<>(set.descendingSet()));
+        Assertions.assertEquals(expected.size(), set.size());
+        for (final E probe : expected) {
+            Assertions.assertTrue(set.contains(probe));
+            Assertions.assertEquals(expected.lower(probe), set.lower(probe));
+            Assertions.assertEquals(expected.floor(probe), set.floor(probe));
+            Assertions.assertEquals(expected.ceiling(probe), set.ceiling(probe));
+            Assertions.assertEquals(expected.higher(probe), set.higher(probe));
+        }
+        if (!expected.isEmpty()) {
+            Assertions.assertEquals(expected.first(), set.first());
+            Assertions.assertEquals(expected.last(), set.last());
+        }
+    }
+
+    /**
+     * Checks navigation of {@code set} like {@link #checkNavigation(NavigableSet, NavigableSet)}
+     * and on random integers, that aren't elements.
+     *
+     * @param set      the tested set
+     * @param expected the reference set
+     */
+    protected static void checkIntegers(final NavigableSet<Integer> set, final NavigableSet<Integer> expected) {
+        checkNavigation(set, expected);
+        for (int i = 0; i < NUMBER_OF_ITERATION; i++) {
+            final int probe = random.nextInt(2 * set.size() + 3) - set.size() - 1;
+            Assertions.assertEquals(expected.contains(probe), set.contains(probe));
+            Assertions.assertEquals(expected.lower(probe), set.lower(probe));
+            Assertions.assertEquals(expected.floor(probe), set.floor(probe));
+            Assertions.assertEquals(expected.ceiling(probe), set.ceiling(probe));
+            Assertions.assertEquals(expected.higher(probe), set.higher(probe));
+        }
+    }
+}
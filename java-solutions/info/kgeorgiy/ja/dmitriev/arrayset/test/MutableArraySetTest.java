@@ -0,0 +1,177 @@
+package info.kgeorgiy.ja.dmitriev.arrayset.test;
+
+import info.kgeorgiy.ja.dmitriev.arrayset.MutableArraySet;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Tests of {@link MutableArraySet} against {@link TreeSet}.
+ *
+ * @author Dmitriev Vladislav (bitree2004@yandex.ru)
+ * @since 21
+ */
+public class MutableArraySetTest extends CommonTest {
+    /**
+     * How many operations will be run.
+     */
+    protected static final int NUMBER_OF_OPERATIONS = 100_000;
+
+    /**
+     * Checks random mix of modifications and lookups.
+     */
+    @Test
+    public void test1_randomOperations() {
+        for (final var comparator : COMPARATORS) {
+            final var set = new MutableArraySet<Integer>(comparator);
+            final var expected = new TreeSet<Integer>(comparator);
+            for (int i = 0; i < NUMBER_OF_OPERATIONS; i++) {
+                final int value = random.nextInt(1000);
+                switch (random.nextInt(8)) {
+                    case 0, 1 -> Assertions.assertEquals(expected.add(value), set.add(value));
+                    case 2 -> Assertions.assertEquals(expected.remove(value), set.remove(value));
+                    case 3 -> Assertions.assertEquals(expected.pollFirst(), set.pollFirst());
+                    case 4 -> Assertions.assertEquals(expected.pollLast(), set.pollLast());
+                    case 5 -> {
+                        Assertions.assertEquals(expected.lower(value), set.lower(value));
+                        Assertions.assertEquals(expected.floor(value), set.floor(value));
+                    }
+                    case 6 -> {
+                        Assertions.assertEquals(expected.ceiling(value), set.ceiling(value));
+                        Assertions.assertEquals(expected.higher(value), set.higher(value));
+                    }
+                    default -> Assertions.assertEquals(expected.contains(value), set.contains(value));
+                }
+                Assertions.assertEquals(expected.size(), set.size());
+            }
+            Assertions.assertEquals(new ArrayList<>(expected), new ArrayList<>(set));
+            Assertions.assertEquals(new ArrayList<>(expected), new ArrayList<>(set.freeze()));
+        }
+    }
+
+    /**
+     * Checks removal by iterator and bulk removals, that use it.
+     */
+    @Test
+    public void test2_iteratorRemove() {
+        final List<Integer> values = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            values.add(random.nextInt(10_000));
+        }
+        final var set = new MutableArraySet<>(values, null);
+        final var expected = new TreeSet<>(values);
+        final var iterator = set.iterator();
+        Assertions.assertThrows(IllegalStateException.class, iterator::remove);
+        while (iterator.hasNext()) {
+            if (iterator.next() % 3 == 0) {
+                iterator.remove();
+                Assertions.assertThrows(IllegalStateException.class, iterator::remove);
+            }
+        }
+        expected.removeIf(x -> x % 3 == 0);
+        Assertions.assertEquals(new ArrayList<>(expected), new ArrayList<>(set));
+
+        set.removeIf(x -> x % 2 == 0);
+        expected.removeIf(x -> x % 2 == 0);
+        Assertions.assertEquals(new ArrayList<>(expected), new ArrayList<>(set));
+
+        final var retained = Set.of(1, 5, 7, 11, 9999);
+        set.retainAll(retained);
+        expected.retainAll(retained);
+        Assertions.assertEquals(new ArrayList<>(expected), new ArrayList<>(set));
+    }
+
+    /**
+     * Checks, that draining a large set from both ends and lookups after interior removals aren't quadratic.
+     */
+    @Test
+    public void test3_drainPerformance() {
+        final int size = 200_000;
+        final List<Integer> values = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            values.add(i);
+        }
+        Assertions.assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            final var set = new MutableArraySet<>(values, null);
+            for (int i = 0; i < size / 2; i++) {
+                Assertions.assertEquals(i, set.pollFirst());
+                Assertions.assertEquals(size - 1 - i, set.pollLast());
+            }
+            Assertions.assertTrue(set.isEmpty());
+            Assertions.assertNull(set.pollFirst());
+
+            final var holes = new MutableArraySet<>(values, null);
+            for (int i = 1; i < size - 1; i++) {
+                holes.remove(i);
+                Assertions.assertEquals(i + 1, holes.higher(0));
+            }
+            Assertions.assertEquals(List.of(0, size - 1), new ArrayList<>(holes));
+        });
+    }
+
+    /**
+     * Checks navigation and subsets after random modifications, and that subsets are snapshots.
+     */
+    @Test
+    public void test4_navigableSet() {
+        for (final var comparator : COMPARATORS) {
+            for (int i = 0; i < NUMBER_OF_ITERATION; i++) {
+                final List<Integer> values = randomValues(random.nextInt(1000));
+                final var set = new MutableArraySet<>(values, comparator);
+                final var expected = treeSet(values, comparator);
+                for (final Integer value : randomValues(random.nextInt(300))) {
+                    Assertions.assertEquals(expected.add(value), set.add(value));
+                    Assertions.assertEquals(expected.remove(-value), set.remove(-value));
+                }
+                checkIntegers(set, expected);
+                Assertions.assertEquals(expected.comparator(), set.comparator());
+                Assertions.assertEquals(
+                        new ArrayList<>(expected.descendingSet()),
+                        iterate(set.descendingIterator())
+                );
+                if (!expected.isEmpty()) {
+                    final Integer middle = expected.ceiling(values.get(random.nextInt(values.size())));
+                    final var tail = set.tailSet(middle, false);
+                    checkIntegers(tail, expected.tailSet(middle, false));
+                    checkIntegers(set.headSet(middle, true), expected.headSet(middle, true));
+                    checkIntegers(set.subSet(expected.first(), true, middle, false),
+                                  expected.subSet(expected.first(), true, middle, false));
+
+                    final List<Integer> before = new ArrayList<>(tail);
+                    set.clear();
+                    Assertions.assertEquals(before, new ArrayList<>(tail));
+                    Assertions.assertThrows(UnsupportedOperationException.class, () -> tail.add(middle));
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks, that a set drained through its tail sets keeps only the elements left.
+     */
+    @Test
+    public void test5_drainThroughTailSet() {
+        final int size = 100_000;
+        final List<Integer> values = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            values.add(i);
+        }
+        final var set = new MutableArraySet<>(values, null);
+        for (int i = 0; i < size - 1; i++) {
+            final var tail = set.tailSet(i, true);
+            Assertions.assertEquals(size - i, tail.size());
+            Assertions.assertEquals(i, tail.first());
+            Assertions.assertTrue(set.remove(i));
+        }
+        Assertions.assertEquals(List.of(size - 1), new ArrayList<>(set));
+        Assertions.assertEquals(List.of(size - 1), new ArrayList<>(set.freeze()));
+    }
+
+    private static <E> List<E> iterate(final Iterator<E> iterator) {
+        final List<E> res = new ArrayList<>();
+        iterator.forEachRemaining(res::add);
+        return res;
+    }
+}
@@ -0,0 +1,85 @@
+package info.kgeorgiy.ja.dmitriev.arrayset.test;
+
+import info.kgeorgiy.ja.dmitriev.arrayset.IntArraySet;
+import info.kgeorgiy.ja.dmitriev.arrayset.LongArraySet;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+/**
+ * Tests of {@link IntArraySet} and {@link LongArraySet} against {@link TreeSet}.
+ *
+ * @author Dmitriev Vladislav (bitree2004@yandex.ru)
+ * @since 21
+ */
+public class PrimitiveArraySetTest extends CommonTest {
+    /**
+     * Checks boxed navigation, views and unboxed accessors of {@link IntArraySet}.
+     */
+    @Test
+    public void test1_intArraySet() {
+        for (int i = 0; i < NUMBER_OF_ITERATION; i++) {
+            final List<Integer> values = randomValues(random.nextInt(100));
+            final var set = new IntArraySet(values.stream().mapToInt(Integer::intValue).toArray());
+            final var expected = treeSet(values, null);
+            checkIntegers(set, expected);
+            checkIntegers(set.descendingSet(), expected.descendingSet());
+            Assertions.assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), set.toIntArray());
+            for (int j = 0; j < set.size(); j++) {
+                Assertions.assertEquals(set.get(j).intValue(), set.getInt(j));
+                Assertions.assertEquals(j, set.indexOf(set.get(j)));
+            }
+
+            final int probe = random.nextInt(200) - 100;
+            Assertions.assertEquals(expected.contains(probe), set.contains(probe));
+            Assertions.assertEquals(expected.headSet(probe, false).size() - 1, set.lowerIndex(probe));
+            Assertions.assertEquals(expected.ceiling(probe), set.get(set.ceilingIndex(probe)));
+            checkIntegers(set.headSet(probe, true), expected.headSet(probe, true));
+            checkIntegers(set.tailSet(probe, false), expected.tailSet(probe, false));
+            checkIntegers(set.descendingSet().headSet(probe, false), expected.descendingSet().headSet(probe, false));
+            final int other = probe + random.nextInt(50);
+            checkIntegers(set.subSet(probe, true, other, false), expected.subSet(probe, true, other, false));
+            Assertions.assertThrows(IllegalArgumentException.class, () -> set.subSet(other + 1, true, probe, true));
+        }
+    }
+
+    /**
+     * Checks {@link LongArraySet} on values, that don't fit in {@code int}.
+     */
+    @Test
+    public void test2_longArraySet() {
+        for (int i = 0; i < NUMBER_OF_ITERATION; i++) {
+            final List<Long> values = randomValues(random.nextInt(100)).stream()
+                    .map(x -> x * (1L << 33))
+                    .toList();
+            final var set = new LongArraySet(values.stream().mapToLong(Long::longValue).toArray());
+            final var expected = treeSet(values, null);
+            checkNavigation(set, expected);
+            checkNavigation(set.descendingSet(), expected.descendingSet());
+            Assertions.assertArrayEquals(expected.stream().mapToLong(Long::longValue).toArray(), set.toLongArray());
+
+            final long probe = (random.nextInt(200) - 100) * (1L << 33) + random.nextInt(3) - 1;
+            Assertions.assertEquals(expected.contains(probe), set.contains(probe));
+            Assertions.assertEquals(expected.floor(probe), set.get(set.floorIndex(probe)));
+            Assertions.assertEquals(expected.higher(probe), set.get(set.higherIndex(probe)));
+            checkNavigation(set.headSet(probe, false), expected.headSet(probe, false));
+            checkNavigation(set.tailSet(probe, true), expected.tailSet(probe, true));
+        }
+    }
+
+    /**
+     * Checks, that the sets are immutable.
+     */
+    @Test
+    public void test3_immutable() {
+        final var ints = new IntArraySet(new int[]{3, 1, 2});
+        final var longs = new LongArraySet(new long[]{3, 1, 2});
+        Assertions.assertThrows(UnsupportedOperationException.class, ints::pollFirst);
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> ints.add(4));
+        Assertions.assertThrows(UnsupportedOperationException.class, longs::pollLast);
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> longs.addFirst(0L));
+        Assertions.assertEquals(List.of(1, 2, 3), ints);
+        Assertions.assertEquals(List.of(1L, 2L, 3L), longs);
+    }
+}
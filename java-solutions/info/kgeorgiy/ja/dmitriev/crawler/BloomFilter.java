@@ -0,0 +1,58 @@
+package info.kgeorgiy.ja.dmitriev.crawler;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Concurrent Bloom filter of 64-bit fingerprints.
+ * With 10 bits per expected element false positive rate is about 1%.
+ *
+ * @author Dmitriev Vladislav (bitree2004@yandex.ru)
+ * @since 21
+ */
+/*package-private*/ class BloomFilter {
+    private static final int BITS_PER_ELEMENT = 10;
+    private static final int HASHES = 7;
+
+    private final AtomicLongArray words;
+    private final long bits;
+
+    /**
+     * Creates empty filter.
+     *
+     * @param expected expected number of elements
+     */
+    /*package-private*/ BloomFilter(final long expected) {
+        final long words = Math.max(1, (Math.max(1, expected) * BITS_PER_ELEMENT + Long.SIZE - 1) / Long.SIZE);
+        if (words > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many expected elements: " + expected);
+        }
+        this.words = new AtomicLongArray((int) words);
+        this.bits = words * Long.SIZE;
+    }
+
+    // i-th of bit indices by double hashing of halves of the fingerprint
+    private long bit(final long fingerprint, final int i) {
+        return Math.floorMod((fingerprint >>> 32) + i * (fingerprint | 1), bits);
+    }
+
+    /*package-private*/ void add(final long fingerprint) {
+        for (int i = 0; i < HASHES; i++) {
+            final long bit = bit(fingerprint, i);
+            final int word = (int) (bit >>> 6);
+            final long mask = 1L << bit;
+            if ((words.get(word) & mask) == 0) {
+                words.getAndUpdate(word, x -> x | mask);
+            }
+        }
+    }
+
+    /*package-private*/ boolean mightContain(final long fingerprint) {
+        for (int i = 0; i < HASHES; i++) {
+            final long bit = bit(fingerprint, i);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
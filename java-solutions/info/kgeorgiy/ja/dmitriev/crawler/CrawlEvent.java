@@ -0,0 +1,44 @@
+package info.kgeorgiy.ja.dmitriev.crawler;
+
+import java.io.IOException;
+
+/**
+ * Outcome of processing of a link during a crawl.
+ *
+ * @author Dmitriev Vladislav (bitree2004@yandex.ru)
+ * @see WebCrawler#crawl(String, int, java.util.Set, java.util.function.Consumer)
+ * @since 21
+ */
+public sealed interface CrawlEvent {
+    /**
+     * Returns the link.
+     *
+     * @return the link
+     */
+    String url();
+
+    /**
+     * Page was downloaded.
+     *
+     * @param url the link
+     */
+    record Downloaded(String url) implements CrawlEvent {
+    }
+
+    /**
+     * Page failed to download or to extract links, a downloaded page may fail later.
+     *
+     * @param url   the link
+     * @param error the error
+     */
+    record Failed(String url, IOException error) implements CrawlEvent {
+    }
+
+    /**
+     * Link was ignored because of excludes or hosts.
+     *
+     * @param url the link
+     */
+    record Skipped(String url) implements CrawlEvent {
+    }
+}
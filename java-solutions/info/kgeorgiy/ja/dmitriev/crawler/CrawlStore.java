@@ -0,0 +1,96 @@
+package info.kgeorgiy.ja.dmitriev.crawler;
+
+import info.kgeorgiy.java.advanced.crawler.Result;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * State of a crawl: reached links with their remaining depth, extracted links and results.
+ * Methods are called concurrently by {@link WebCrawler}.
+ * Implementations, that keep state on disk, report I/O errors by {@link java.io.UncheckedIOException}.
+ *
+ * @author Dmitriev Vladislav (bitree2004@yandex.ru)
+ * @see WebCrawler#download(String, int, java.util.Set, CrawlStore)
+ * @since 21
+ */
+public interface CrawlStore extends Closeable {
+    /**
+     * Raises remaining depth of {@code url} to {@code depth}, if it is less.
+     *
+     * @param url   the link
+     * @param depth positive remaining depth
+     * @return previous remaining depth, {@code 0} if {@code url} wasn't reached before
+     */
+    int raise(String url, int depth);
+
+    /**
+     * Returns remaining depth of {@code url}.
+     *
+     * @param url the link
+     * @return remaining depth, {@code 0} if {@code url} wasn't reached
+     */
+    int depth(String url);
+
+    /**
+     * Records, that {@code url} isn't downloaded because of excludes or hosts.
+     *
+     * @param url the link
+     */
+    void skipped(String url);
+
+    /**
+     * Records, that {@code url} was downloaded.
+     *
+     * @param url the link
+     */
+    void downloaded(String url);
+
+    /**
+     * Records links of downloaded {@code url}.
+     *
+     * @param url   the link
+     * @param links extracted links
+     */
+    void extracted(String url, List<String> links);
+
+    /**
+     * Records, that {@code url} failed to download or to extract links.
+     *
+     * @param url the link
+     * @param e   the error
+     */
+    void failed(String url, IOException e);
+
+    /**
+     * Returns links extracted from {@code url}.
+     *
+     * @param url the link
+     * @return extracted links, {@code null} if they weren't extracted
+     */
+    List<String> links(String url);
+
+    /**
+     * Passes state of a previous crawl, that was interrupted.
+     *
+     * @param unfinished consumer of reached links, that weren't processed
+     * @param extracted  consumer of links, which links were extracted
+     */
+    void resume(Consumer<String> unfinished, Consumer<String> extracted);
+
+    /**
+     * Returns downloaded links and errors.
+     *
+     * @return result of the crawl
+     */
+    Result result();
+
+    /**
+     * Makes recorded state durable.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    void checkpoint() throws IOException;
+}
@@ -0,0 +1,692 @@
+package info.kgeorgiy.ja.dmitriev.crawler;
+
+import info.kgeorgiy.java.advanced.crawler.Result;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Is an instance of {@link CrawlStore}, that keeps state in a directory, so heap usage doesn't grow with the crawl.
+ * <ul>
+ *     <li>{@code fingerprints.<i>} are memory-mapped open addressing hash tables of 64-bit fingerprints of links
+ *     with their remaining depth, state and offset of extracted links,
+ *     a link goes to the table by high bits of its fingerprint</li>
+ *     <li>{@code urls} is an append-only queue of reached links</li>
+ *     <li>{@code links} is an append-only file of extracted links</li>
+ *     <li>{@code errors} is an append-only file of errors</li>
+ * </ul>
+ * Every table has its own lock, files are appended without locks of tables: concurrent records are queued
+ * and written together by one of their threads.
+ * Errors keep their class and message, if the class is a platform {@link IOException} from {@code java.io},
+ * {@code java.net}, {@code java.nio} or {@code javax.net.ssl} packages with public constructor from message,
+ * other errors are restored as {@link IOException}. Stack traces and causes of errors aren't kept.
+ * Every change is written before the method returns, so a crawl of the same directory after a crash
+ * of the process resumes from the last change, {@link #checkpoint()} also protects from a crash of the system.
+ * Links with equal fingerprints are considered equal.
+ * An optional Bloom filter in memory answers for most new links without reading the tables.
+ *
+ * @author Dmitriev Vladislav (bitree2004@yandex.ru)
+ * @since 21
+ */
+@SuppressWarnings("unused")
+public class DiskCrawlStore implements CrawlStore {
+    // fingerprint, depth, flags, offset of links + 1
+    private static final int SLOT = Long.BYTES + Integer.BYTES + Integer.BYTES + Long.BYTES;
+    private static final int SEGMENT_BITS = 20;
+    private static final int STRIPE_BITS = 4;
+    private static final int MIN_CAPACITY = 1 << 12;
+    private static final int DOWNLOADED = 1;
+    private static final int DONE = 2;
+    // the link is written to urls, slots without it are left by a crash and dropped on open
+    private static final int QUEUED = 4;
+    private static final Set<String> RESTORED_PACKAGES = Set.of(
+            "java.io", "java.net", "java.net.http", "java.nio", "java.nio.channels",
+            "java.nio.charset", "java.nio.file", "java.util.zip", "javax.net.ssl"
+    );
+
+    private final Appender urls;
+    private final Appender links;
+    private final Appender errors;
+    private final Stripe[] stripes;
+
+    /**
+     * Opens state in {@code directory}, the directory and files are created if they don't exist.
+     *
+     * @param directory the directory of state
+     * @throws IOException if an I/O error occurs
+     */
+    public DiskCrawlStore(final Path directory) throws IOException {
+        this(directory, null);
+    }
+
+    /**
+     * Opens state in {@code directory} with a Bloom filter of about 10 bits per expected link in memory.
+     *
+     * @param directory    the directory of state
+     * @param expectedUrls expected number of reached links
+     * @throws IOException if an I/O error occurs
+     * @see #DiskCrawlStore(Path)
+     */
+    public DiskCrawlStore(final Path directory, final long expectedUrls) throws IOException {
+        this(directory, new BloomFilter(expectedUrls));
+    }
+
+    private DiskCrawlStore(final Path directory, final BloomFilter bloomFilter) throws IOException {
+        Files.createDirectories(directory);
+        this.urls = new Appender(directory.resolve("urls"), true);
+        this.links = new Appender(directory.resolve("links"), false);
+        this.errors = new Appender(directory.resolve("errors"), true);
+        this.stripes = new Stripe[1 << STRIPE_BITS];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe(directory, "fingerprints." + i, bloomFilter);
+        }
+    }
+
+    private static FileChannel open(final Path path) throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private Stripe stripe(final long fingerprint) {
+        return stripes[(int) (fingerprint >>> (Long.SIZE - STRIPE_BITS))];
+    }
+
+    @Override
+    public int raise(final String url, final int depth) {
+        final long fingerprint = FingerprintTable.fingerprint(url);
+        final Stripe stripe = stripe(fingerprint);
+        final int old = stripe.raise(fingerprint, depth);
+        if (old == 0) {
+            try {
+                urls.append(out -> {
+                    out.writeInt(depth);
+                    writeString(out, url);
+                });
+            } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            stripe.mark(fingerprint, QUEUED);
+        }
+        return old;
+    }
+
+    @Override
+    public int depth(final String url) {
+        final long fingerprint = FingerprintTable.fingerprint(url);
+        return stripe(fingerprint).depthOf(fingerprint);
+    }
+
+    private void addFlags(final String url, final int flags) {
+        final long fingerprint = FingerprintTable.fingerprint(url);
+        stripe(fingerprint).mark(fingerprint, flags);
+    }
+
+    @Override
+    public void skipped(final String url) {
+        addFlags(url, DONE);
+    }
+
+    @Override
+    public void downloaded(final String url) {
+        addFlags(url, DOWNLOADED);
+    }
+
+    @Override
+    public void extracted(final String url, final List<String> links) {
+        final long fingerprint = FingerprintTable.fingerprint(url);
+        final Stripe stripe = stripe(fingerprint);
+        if (stripe.depthOf(fingerprint) == 0) {
+            return;
+        }
+        final long offset;
+        try {
+            offset = this.links.append(out -> {
+                out.writeInt(links.size());
+                for (final String link : links) {
+                    writeString(out, link);
+                }
+            });
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        stripe.extracted(fingerprint, offset);
+    }
+
+    @Override
+    public void failed(final String url, final IOException e) {
+        try {
+            errors.append(out -> {
+                writeString(out, url);
+                writeString(out, String.valueOf(e.getMessage()));
+                // after fields of older records, that have no type
+                writeString(out, e.getClass().getName());
+                out.writeBoolean(e.getMessage() == null);
+            });
+        } catch (final IOException e1) {
+            e1.addSuppressed(e);
+            throw new UncheckedIOException(e1);
+        }
+        addFlags(url, DONE);
+    }
+
+    @Override
+    public List<String> links(final String url) {
+        final long fingerprint = FingerprintTable.fingerprint(url);
+        final long offset = stripe(fingerprint).linksOffsetOf(fingerprint);
+        if (offset < 0) {
+            return null;
+        }
+        try {
+            final DataInputStream in = links.read(offset);
+            final int count = in.readInt();
+            final var res = new ArrayList<String>(count);
+            for (int i = 0; i < count; i++) {
+                res.add(readString(in));
+            }
+            return res;
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void resume(final Consumer<String> unfinished, final Consumer<String> extracted) {
+        forEachUrl((url, depth) -> {
+            final long fingerprint = FingerprintTable.fingerprint(url);
+            final Stripe stripe = stripe(fingerprint);
+            // the record was written, but the process stopped before the table was marked
+            stripe.raise(fingerprint, depth);
+            stripe.mark(fingerprint, QUEUED);
+            final int flags = stripe.flagsOf(fingerprint);
+            if ((flags & DONE) == 0) {
+                unfinished.accept(url);
+            } else if (stripe.linksOffsetOf(fingerprint) >= 0) {
+                extracted.accept(url);
+            }
+        });
+    }
+
+    @Override
+    public Result result() {
+        final var downloaded = new ArrayList<String>();
+        final Map<String, IOException> failed = new HashMap<>();
+        try {
+            forEachUrl((url, depth) -> {
+                final long fingerprint = FingerprintTable.fingerprint(url);
+                if ((stripe(fingerprint).flagsOf(fingerprint) & DOWNLOADED) != 0) {
+                    downloaded.add(url);
+                }
+            });
+            errors.forEach(in -> {
+                final String url = readString(in);
+                final String message = readString(in);
+                if (in.available() > 0) {
+                    final String type = readString(in);
+                    failed.put(url, restore(type, in.readBoolean() ? null : message));
+                } else {
+                    failed.put(url, new IOException(message));
+                }
+            });
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new Result(downloaded, failed);
+    }
+
+    // only platform classes of allowed packages are instantiated, so files of state can't run arbitrary code
+    private static IOException restore(final String type, final String message) {
+        try {
+            final Class<?> token = Class.forName(type, false, ClassLoader.getPlatformClassLoader());
+            if (RESTORED_PACKAGES.contains(token.getPackageName()) && IOException.class.isAssignableFrom(token)) {
+                return (IOException) token.getConstructor(String.class).newInstance(message);
+            }
+        } catch (final ReflectiveOperationException | RuntimeException | LinkageError ignored) {
+            // the class isn't available or accessible
+        }
+        return new IOException(message);
+    }
+
+    private void forEachUrl(final UrlConsumer consumer) {
+        try {
+            urls.forEach(in -> {
+                final int depth = in.readInt();
+                consumer.accept(readString(in), depth);
+            });
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void checkpoint() throws IOException {
+        for (final Stripe stripe : stripes) {
+            stripe.force();
+        }
+        urls.force();
+        links.force();
+        errors.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            checkpoint();
+        } finally {
+            for (final Stripe stripe : stripes) {
+                stripe.close();
+            }
+            urls.close();
+            links.close();
+            errors.close();
+        }
+    }
+
+    private static void writeString(final DataOutputStream out, final String string) throws IOException {
+        final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(final DataInputStream in) throws IOException {
+        return new String(in.readNBytes(in.readInt()), StandardCharsets.UTF_8);
+    }
+
+    @FunctionalInterface
+    private interface UrlConsumer {
+        void accept(String url, int depth) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface RecordWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface RecordReader {
+        void read(DataInputStream in) throws IOException;
+    }
+
+    /**
+     * Memory-mapped open addressing hash table of slots, that is split into segments of {@code 2^20} slots.
+     * The table grows into a new file, that replaces the old one.
+     */
+    private static class Stripe implements Closeable {
+        private final Path directory;
+        private final Path path;
+        private final BloomFilter bloomFilter;
+        private FileChannel table;
+        private MappedByteBuffer[] segments;
+        private long capacity;
+        private long size;
+
+        private Stripe(final Path directory, final String name, final BloomFilter bloomFilter) throws IOException {
+            this.directory = directory;
+            this.path = directory.resolve(name);
+            this.bloomFilter = bloomFilter;
+            this.table = open(path);
+            final long slots = table.size() / SLOT;
+            if (slots < MIN_CAPACITY || Long.bitCount(slots) != 1) {
+                if (slots != 0) {
+                    throw new IOException("Broken fingerprint table " + path);
+                }
+                capacity = MIN_CAPACITY;
+            } else {
+                capacity = slots;
+            }
+            segments = map(table, capacity);
+            for (long i = 0; i < capacity; i++) {
+                while (fingerprint(i) != 0 && (flags(i) & QUEUED) == 0) {
+                    delete(i);
+                }
+            }
+            for (long i = 0; i < capacity; i++) {
+                if (fingerprint(i) != 0) {
+                    size++;
+                    if (bloomFilter != null) {
+                        bloomFilter.add(fingerprint(i));
+                    }
+                }
+            }
+        }
+
+        private static MappedByteBuffer[] map(final FileChannel channel, final long capacity) throws IOException {
+            final long segmentSlots = Math.min(capacity, 1L << SEGMENT_BITS);
+            final var res = new MappedByteBuffer[(int) (capacity / segmentSlots)];
+            for (int i = 0; i < res.length; i++) {
+                res[i] = channel.map(FileChannel.MapMode.READ_WRITE, i * segmentSlots * SLOT, segmentSlots * SLOT);
+            }
+            return res;
+        }
+
+        private MappedByteBuffer segment(final long slot) {
+            return segments[(int) (slot >>> SEGMENT_BITS)];
+        }
+
+        private static int offset(final long slot) {
+            return (int) (slot & ((1L << SEGMENT_BITS) - 1)) * SLOT;
+        }
+
+        private long fingerprint(final long slot) {
+            return segment(slot).getLong(offset(slot));
+        }
+
+        private int depth(final long slot) {
+            return segment(slot).getInt(offset(slot) + Long.BYTES);
+        }
+
+        private int flags(final long slot) {
+            return segment(slot).getInt(offset(slot) + Long.BYTES + Integer.BYTES);
+        }
+
+        private long linksOffset(final long slot) {
+            return segment(slot).getLong(offset(slot) + Long.BYTES + 2 * Integer.BYTES) - 1;
+        }
+
+        private void setDepth(final long slot, final int depth) {
+            segment(slot).putInt(offset(slot) + Long.BYTES, depth);
+        }
+
+        private void addFlags(final long slot, final int flags) {
+            segment(slot).putInt(offset(slot) + Long.BYTES + Integer.BYTES, flags(slot) | flags);
+        }
+
+        private void setLinksOffset(final long slot, final long linksOffset) {
+            segment(slot).putLong(offset(slot) + Long.BYTES + 2 * Integer.BYTES, linksOffset + 1);
+        }
+
+        // slot with the fingerprint or empty slot, where it should be
+        private long find(final long fingerprint) {
+            long slot = fingerprint & (capacity - 1);
+            while (true) {
+                final long current = fingerprint(slot);
+                if (current == 0 || current == fingerprint) {
+                    return slot;
+                }
+                slot = (slot + 1) & (capacity - 1);
+            }
+        }
+
+        // slot with the fingerprint or -1
+        private long slot(final long fingerprint) {
+            if (bloomFilter != null && !bloomFilter.mightContain(fingerprint)) {
+                return -1;
+            }
+            final long slot = find(fingerprint);
+            return fingerprint(slot) == 0 ? -1 : slot;
+        }
+
+        private void copy(final long from, final long to) {
+            for (int j = 0; j < SLOT; j += Long.BYTES) {
+                segment(to).putLong(offset(to) + j, segment(from).getLong(offset(from) + j));
+            }
+        }
+
+        private void clear(final long slot) {
+            for (int j = 0; j < SLOT; j += Long.BYTES) {
+                segment(slot).putLong(offset(slot) + j, 0);
+            }
+        }
+
+        // empties the slot and moves slots of the following run, that can't be found after that
+        private void delete(final long slot) {
+            clear(slot);
+            for (long i = (slot + 1) & (capacity - 1); fingerprint(i) != 0; i = (i + 1) & (capacity - 1)) {
+                final long to = find(fingerprint(i));
+                if (to != i) {
+                    copy(i, to);
+                    clear(i);
+                }
+            }
+        }
+
+        private synchronized int raise(final long fingerprint, final int depth) {
+            final long slot = slot(fingerprint);
+            if (slot < 0) {
+                try {
+                    insert(fingerprint, depth);
+                } catch (final IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return 0;
+            }
+            final int old = depth(slot);
+            if (old < depth) {
+                setDepth(slot, depth);
+            }
+            return old;
+        }
+
+        private synchronized int depthOf(final long fingerprint) {
+            final long slot = slot(fingerprint);
+            return slot < 0 ? 0 : depth(slot);
+        }
+
+        private synchronized int flagsOf(final long fingerprint) {
+            final long slot = slot(fingerprint);
+            return slot < 0 ? 0 : flags(slot);
+        }
+
+        private synchronized long linksOffsetOf(final long fingerprint) {
+            final long slot = slot(fingerprint);
+            return slot < 0 ? -1 : linksOffset(slot);
+        }
+
+        private synchronized void mark(final long fingerprint, final int flags) {
+            final long slot = slot(fingerprint);
+            if (slot >= 0) {
+                addFlags(slot, flags);
+            }
+        }
+
+        private synchronized void extracted(final long fingerprint, final long linksOffset) {
+            final long slot = slot(fingerprint);
+            if (slot >= 0) {
+                setLinksOffset(slot, linksOffset);
+                addFlags(slot, DONE);
+            }
+        }
+
+        private void insert(final long fingerprint, final int depth) throws IOException {
+            if (2 * (size + 1) > capacity) {
+                grow();
+            }
+            final long slot = find(fingerprint);
+            segment(slot).putLong(offset(slot), fingerprint);
+            setDepth(slot, depth);
+            size++;
+            if (bloomFilter != null) {
+                bloomFilter.add(fingerprint);
+            }
+        }
+
+        // Old segments stay mapped, till they are collected: Java 21 has no public way to unmap a buffer,
+        // so they hold address space and pages of the replaced file meanwhile. Only this stripe is copied,
+        // so the old mapping is a fraction of all tables.
+        private void grow() throws IOException {
+            final Path tmp = directory.resolve(path.getFileName() + ".tmp");
+            Files.deleteIfExists(tmp);
+            final FileChannel newTable = open(tmp);
+            final MappedByteBuffer[] oldSegments = segments;
+            final long oldCapacity = capacity;
+            final FileChannel oldTable = table;
+            segments = map(newTable, 2 * capacity);
+            capacity *= 2;
+            for (long i = 0; i < oldCapacity; i++) {
+                final MappedByteBuffer segment = oldSegments[(int) (i >>> SEGMENT_BITS)];
+                final int offset = offset(i);
+                final long fingerprint = segment.getLong(offset);
+                if (fingerprint != 0) {
+                    final long slot = find(fingerprint);
+                    final int to = offset(slot);
+                    for (int j = 0; j < SLOT; j += Long.BYTES) {
+                        segment(slot).putLong(to + j, segment.getLong(offset + j));
+                    }
+                }
+            }
+            for (final MappedByteBuffer segment : segments) {
+                segment.force();
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            table = newTable;
+            oldTable.close();
+        }
+
+        private synchronized void force() {
+            for (final MappedByteBuffer segment : segments) {
+                segment.force();
+            }
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            table.close();
+        }
+    }
+
+    /**
+     * Append-only file of records, every record is its length and content.
+     * Records are queued, the thread, that holds the write lock, writes all queued records by one write.
+     */
+    private static class Appender implements Closeable {
+        private final Path path;
+        private final FileChannel channel;
+        private final Queue<Record> queue = new ConcurrentLinkedQueue<>();
+        private final ReentrantLock writeLock = new ReentrantLock();
+        private long end;
+
+        private Appender(final Path path, final boolean truncate) throws IOException {
+            this.path = path;
+            this.channel = open(path);
+            this.end = channel.size();
+            if (truncate) {
+                // drops a partially written record
+                end = forEach(in -> {});
+                channel.truncate(end);
+            }
+        }
+
+        private long append(final RecordWriter writer) throws IOException {
+            final var bytes = new ByteArrayOutputStream();
+            final var out = new DataOutputStream(bytes);
+            out.writeInt(0);
+            writer.write(out);
+            final ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+            buffer.putInt(0, buffer.capacity() - Integer.BYTES);
+            final Record record = new Record(buffer);
+            queue.add(record);
+            writeLock.lock();
+            try {
+                if (record.position < 0 && record.error == null) {
+                    writeQueued();
+                }
+                if (record.error != null) {
+                    throw new IOException("Can't append to " + path, record.error);
+                }
+                return record.position;
+            } finally {
+                writeLock.unlock();
+            }
+        }
+
+        private void writeQueued() {
+            final List<Record> batch = new ArrayList<>();
+            long total = 0;
+            for (Record record = queue.poll(); record != null; record = queue.poll()) {
+                batch.add(record);
+                total += record.buffer.remaining();
+            }
+            final ByteBuffer[] buffers = batch.stream().map(Record::buffer).toArray(ByteBuffer[]::new);
+            try {
+                channel.position(end);
+                for (long written = 0; written < total; ) {
+                    written += channel.write(buffers);
+                }
+            } catch (final IOException e) {
+                batch.forEach(record -> record.error = e);
+                return;
+            }
+            for (final Record record : batch) {
+                record.position = end;
+                end += record.buffer.capacity();
+            }
+        }
+
+        private DataInputStream read(final long position) throws IOException {
+            final ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+            readFully(length, position);
+            final ByteBuffer record = ByteBuffer.allocate(length.getInt(0));
+            readFully(record, position + Integer.BYTES);
+            return new DataInputStream(new ByteArrayInputStream(record.array()));
+        }
+
+        private void readFully(final ByteBuffer buffer, final long position) throws IOException {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    throw new EOFException("Unexpected end of " + path);
+                }
+            }
+        }
+
+        // reads complete records, that were appended before the call, returns the end of the last one
+        private long forEach(final RecordReader reader) throws IOException {
+            final long limit;
+            writeLock.lock();
+            try {
+                limit = end;
+            } finally {
+                writeLock.unlock();
+            }
+            try (final var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+                long position = 0;
+                while (position + Integer.BYTES <= limit) {
+                    final int length = in.readInt();
+                    if (position + Integer.BYTES + length > limit) {
+                        break;
+                    }
+                    reader.read(new DataInputStream(new ByteArrayInputStream(in.readNBytes(length))));
+                    position += Integer.BYTES + length;
+                }
+                return position;
+            }
+        }
+
+        private void force() throws IOException {
+            channel.force(false);
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    // record of an appender, fields are guarded by its write lock
+    private static final class Record {
+        private final ByteBuffer buffer;
+        private long position = -1;
+        private IOException error;
+
+        private Record(final ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        private ByteBuffer buffer() {
+            return buffer;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package info.kgeorgiy.ja.dmitriev.crawler;
+
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+/**
+ * Concurrent map from 64-bit fingerprints of links to their remaining depth.
+ * Keys and values are kept in primitive arrays of open addressing tables: a slot takes 12 bytes,
+ * tables are filled from 3/8 to 3/4, so a link takes 16 to 32 bytes.
+ * The table is split into stripes by high bits of fingerprints, every stripe has its own lock.
+ *
+ * @author Dmitriev Vladislav (bitree2004@yandex.ru)
+ * @since 21
+ */
+/*package-private*/ class FingerprintTable {
+    private static final int STRIPE_BITS = 6;
+    private static final int MIN_CAPACITY = 16;
+
+    private final Stripe[] stripes = Stream.generate(Stripe::new)
+            .limit(1 << STRIPE_BITS)
+            .toArray(Stripe[]::new);
+
+    /**
+     * Returns fingerprint of {@code url}, which is never {@code 0}.
+     *
+     * @param url the link
+     * @return 64-bit hash
+     */
+    /*package-private*/ static long fingerprint(final String url) {
+        // FNV-1a with murmur finalizer
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < url.length(); i++) {
+            h = (h ^ url.charAt(i)) * 0x100000001b3L;
+        }
+        h = (h ^ (h >>> 33)) * 0xff51afd7ed558ccdL;
+        h = (h ^ (h >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        // 0 marks empty slot
+        return h == 0 ? 1 : h;
+    }
+
+    private Stripe stripe(final long fingerprint) {
+        return stripes[(int) (fingerprint >>> (Long.SIZE - STRIPE_BITS))];
+    }
+
+    /**
+     * Raises depth of {@code fingerprint} to {@code depth}, if it is less.
+     *
+     * @param fingerprint non-zero fingerprint
+     * @param depth       positive depth
+     * @return previous depth, {@code 0} if it was absent
+     */
+    /*package-private*/ int raise(final long fingerprint, final int depth) {
+        return stripe(fingerprint).raise(fingerprint, depth);
+    }
+
+    /**
+     * Returns depth of {@code fingerprint}.
+     *
+     * @param fingerprint non-zero fingerprint
+     * @return depth, {@code 0} if it is absent
+     */
+    /*package-private*/ int get(final long fingerprint) {
+        return stripe(fingerprint).get(fingerprint);
+    }
+
+    private static class Stripe {
+        private long[] keys = new long[MIN_CAPACITY];
+        private int[] values = new int[MIN_CAPACITY];
+        private int size;
+
+        private int find(final long[] keys, final long fingerprint) {
+            final int mask = keys.length - 1;
+            int slot = (int) fingerprint & mask;
+            while (keys[slot] != 0 && keys[slot] != fingerprint) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private synchronized int get(final long fingerprint) {
+            return values[find(keys, fingerprint)];
+        }
+
+        private synchronized int raise(final long fingerprint, final int depth) {
+            int slot = find(keys, fingerprint);
+            final int old = values[slot];
+            if (keys[slot] == 0) {
+                if (4 * (size + 1) > 3 * keys.length) {
+                    grow();
+                    slot = find(keys, fingerprint);
+                }
+                keys[slot] = fingerprint;
+                size++;
+            }
+            values[slot] = Math.max(old, depth);
+            return old;
+        }
+
+        private void grow() {
+            final long[] newKeys = new long[2 * keys.length];
+            final int[] newValues = new int[2 * keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != 0) {
+                    final int slot = find(newKeys, keys[i]);
+                    newKeys[slot] = keys[i];
+                    newValues[slot] = values[i];
+                }
+            }
+            keys = newKeys;
+            values = newValues;
+        }
+    }
+}
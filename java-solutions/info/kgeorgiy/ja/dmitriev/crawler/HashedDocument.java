@@ -0,0 +1,54 @@
+package info.kgeorgiy.ja.dmitriev.crawler;
+
+import info.kgeorgiy.java.advanced.crawler.Document;
+
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Is a {@link Document}, that knows hash of its content.
+ * {@link WebCrawler} takes links of such documents from a {@link PageCache}, if content didn't change.
+ *
+ * @author Dmitriev Vladislav (bitree2004@yandex.ru)
+ * @since 21
+ */
+public interface HashedDocument extends Document {
+    /**
+     * Returns hash of content of the page. Pages with equal hashes must have equal links.
+     *
+     * @return hash of content
+     */
+    String contentHash();
+
+    /**
+     * Returns {@code document} with SHA-256 of {@code content} as its hash.
+     *
+     * @param content  content of the page
+     * @param document the page
+     * @return hashed document
+     */
+    static HashedDocument of(final byte[] content, final Document document) {
+        Objects.requireNonNull(document);
+        final String hash;
+        try {
+            hash = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (final NoSuchAlgorithmException e) {
+            throw new AssertionError("SHA-256 is required by every Java platform", e);
+        }
+        return new HashedDocument() {
+            @Override
+            public String contentHash() {
+                return hash;
+            }
+
+            @Override
+            public List<String> extractLinks() throws IOException {
+                return document.extractLinks();
+            }
+        };
+    }
+}
@@ -0,0 +1,270 @@
+package info.kgeorgiy.ja.dmitriev.crawler;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs tasks on an executor, so at most {@code perHost} tasks of every host run simultaneously.
+ * Every active host has a lock-free queue of waiting tasks and a counter of running ones.
+ * A finished task passes its permit to the next waiting task of its host.
+ * A host without queued and running tasks is removed, its slot is kept for reuse by another host.
+ * Every task has a callback, that runs instead of it, if the executor or the timer rejects it,
+ * so exactly one of them runs for every submitted task.
+ * <p>
+ * With {@link Politeness} limits a task checks them right before it starts.
+ * A task, that can't start yet, waits in the delay queue of the timer instead of a thread of the executor,
+ * so the executor runs tasks of other hosts meanwhile. A host is removed only after its limits
+ * don't delay the next task, so they hold across removals.
+ *
+ * @author Dmitriev Vladislav (bitree2004@yandex.ru)
+ * @since 21
+ */
+/*package-private*/ class HostLimiter {
+    private static final int MAX_FREE_SLOTS = 1 << 10;
+
+    private final Executor executor;
+    private final int perHost;
+    private final ScheduledExecutorService timer;
+    private final long minDelay;
+    private final long interval;
+    // how much the token bucket lets to start earlier than the average rate
+    private final long tolerance;
+    private final Map<String, Slot> hosts = new ConcurrentHashMap<>();
+    private final Queue<Slot> freeSlots = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger freeCount = new AtomicInteger(0);
+
+    /*package-private*/ HostLimiter(final Executor executor, final int perHost) {
+        this(executor, perHost, Politeness.NONE, null);
+    }
+
+    /**
+     * Creates limiter with limits of rate.
+     *
+     * @param executor   executor of tasks
+     * @param perHost    maximum number of simultaneously running tasks of a host
+     * @param politeness limits of rate of every host
+     * @param timer      timer of delayed tasks, may be {@code null} if {@code politeness} isn't limited
+     */
+    /*package-private*/ HostLimiter(
+            final Executor executor,
+            final int perHost,
+            final Politeness politeness,
+            final ScheduledExecutorService timer
+    ) {
+        this.executor = executor;
+        this.perHost = perHost;
+        this.timer = timer;
+        this.minDelay = politeness.minDelayNanos();
+        this.interval = politeness.intervalNanos();
+        this.tolerance = (politeness.burst() - 1) * interval;
+        if (politeness.isLimited() && timer == null) {
+            throw new IllegalArgumentException("Timer is required for limits of rate");
+        }
+    }
+
+    /**
+     * Runs {@code task} when less than {@code perHost} tasks of {@code host} are running.
+     * If the executor or the timer is shut down, {@code rejected} runs instead of {@code task}
+     * in the thread, that finds it out.
+     *
+     * @param host     the host
+     * @param task     the task
+     * @param rejected the callback of rejection of the task
+     */
+    /*package-private*/ void submit(final String host, final Runnable task, final Runnable rejected) {
+        final var job = new Job(task, rejected);
+        while (true) {
+            final Slot slot = hosts.computeIfAbsent(host, this::slot);
+            if (slot.pin(host)) {
+                slot.tasks.add(job);
+                slot.schedule();
+                return;
+            }
+            // the slot is being removed
+            Thread.onSpinWait();
+        }
+    }
+
+    private boolean isLimited() {
+        return minDelay > 0 || interval > 0;
+    }
+
+    private Slot slot(final String host) {
+        Slot slot = freeSlots.poll();
+        if (slot == null) {
+            slot = new Slot();
+        } else {
+            freeCount.decrementAndGet();
+        }
+        slot.host = host;
+        slot.pace.set(Pace.IDLE);
+        // publishes host to threads, that pin the slot
+        slot.users.set(0);
+        return slot;
+    }
+
+    /**
+     * State of limits of a host.
+     *
+     * @param last start of the last task
+     * @param due  theoretical time of the next start at the average rate
+     */
+    private record Pace(long last, long due) {
+        private static final Pace IDLE = new Pace(Long.MIN_VALUE, Long.MIN_VALUE);
+    }
+
+    private record Job(Runnable task, Runnable rejected) {
+    }
+
+    private class Slot {
+        private final Queue<Job> tasks = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger running = new AtomicInteger(0);
+        // queued and running tasks, -1 if the slot isn't used by a host
+        private final AtomicInteger users = new AtomicInteger(-1);
+        private final AtomicReference<Pace> pace = new AtomicReference<>(Pace.IDLE);
+        private String host;
+
+        private boolean pin(final String host) {
+            while (true) {
+                final int current = users.get();
+                if (current < 0) {
+                    return false;
+                }
+                if (users.compareAndSet(current, current + 1)) {
+                    if (host.equals(this.host)) {
+                        return true;
+                    }
+                    // the slot was reused by another host
+                    unpin();
+                    return false;
+                }
+            }
+        }
+
+        private void unpin() {
+            if (users.decrementAndGet() == 0) {
+                release();
+            }
+        }
+
+        private void release() {
+            final Pace current = pace.get();
+            final long delay = current == Pace.IDLE ? 0 : earliest(current) - System.nanoTime();
+            if (delay > 0) {
+                // limits of the host still matter
+                try {
+                    timer.schedule(this::release, delay, TimeUnit.NANOSECONDS);
+                } catch (final RejectedExecutionException ignored) {
+                    // the timer is shut down, the slot stays in use
+                }
+                return;
+            }
+            if (users.compareAndSet(0, -1)) {
+                hosts.remove(host, this);
+                if (freeCount.incrementAndGet() <= MAX_FREE_SLOTS) {
+                    freeSlots.add(this);
+                } else {
+                    freeCount.decrementAndGet();
+                }
+            }
+        }
+
+        // the earliest time, when limits let the next task to start
+        private long earliest(final Pace pace) {
+            return Math.max(pace.last() + minDelay, pace.due() - tolerance);
+        }
+
+        // starts the limits of the next task now or returns time to wait for them
+        private long acquire() {
+            if (!isLimited()) {
+                return 0;
+            }
+            while (true) {
+                final long now = System.nanoTime();
+                final Pace current = pace.get();
+                if (current != Pace.IDLE && earliest(current) - now > 0) {
+                    return earliest(current) - now;
+                }
+                final long due = (current == Pace.IDLE ? now : Math.max(current.due(), now)) + interval;
+                if (pace.compareAndSet(current, new Pace(now, due))) {
+                    return 0;
+                }
+            }
+        }
+
+        // takes permits for waiting tasks
+        private void schedule() {
+            while (true) {
+                final int current = running.get();
+                if (current >= perHost || tasks.isEmpty()) {
+                    return;
+                }
+                if (running.compareAndSet(current, current + 1)) {
+                    final Job job = tasks.poll();
+                    if (job == null) {
+                        running.decrementAndGet();
+                    } else {
+                        start(job);
+                    }
+                }
+            }
+        }
+
+        // runs job with taken permit
+        private void start(final Job job) {
+            try {
+                executor.execute(() -> run(job));
+            } catch (final RejectedExecutionException e) {
+                reject(job);
+            }
+        }
+
+        // releases permit of job and fails it, queued jobs fail too, because the executor is shut down
+        private void reject(final Job job) {
+            Job queued;
+            while ((queued = tasks.poll()) != null) {
+                unpin();
+                queued.rejected().run();
+            }
+            running.decrementAndGet();
+            unpin();
+            job.rejected().run();
+        }
+
+        private void run(final Job job) {
+            final long delay = acquire();
+            if (delay > 0) {
+                // waits in the timer with the permit, the thread runs other tasks meanwhile
+                try {
+                    timer.schedule(() -> start(job), delay, TimeUnit.NANOSECONDS);
+                } catch (final RejectedExecutionException e) {
+                    reject(job);
+                }
+                return;
+            }
+            try {
+                job.task().run();
+            } finally {
+                // the next job keeps the permit, the slot stays pinned by it
+                final Job next = tasks.poll();
+                if (next == null) {
+                    running.decrementAndGet();
+                }
+                unpin();
+                if (next != null) {
+                    start(next);
+                } else {
+                    schedule();
+                }
+            }
+        }
+    }
+}
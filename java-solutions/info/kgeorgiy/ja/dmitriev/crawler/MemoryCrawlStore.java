@@ -0,0 +1,139 @@
+package info.kgeorgiy.ja.dmitriev.crawler;
+
+import info.kgeorgiy.java.advanced.crawler.Result;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Is an instance of {@link CrawlStore}, that keeps state in memory.
+ * Reached links are kept as 64-bit fingerprints, that is 16 to 32 bytes per link.
+ * Extracted links of every page are kept for the whole crawl, because a page, that is reached again
+ * by a shorter path, expands its links again without a second download. They are kept as UTF-8
+ * with varint lengths, so memory still grows with the total length of extracted links,
+ * about a byte per character of a link. {@link DiskCrawlStore} keeps them on disk instead.
+ * Results are kept as strings, unless they are disabled.
+ * Nothing is left to resume after a restart.
+ *
+ * @author Dmitriev Vladislav (bitree2004@yandex.ru)
+ * @since 21
+ */
+/*package-private*/ class MemoryCrawlStore implements CrawlStore {
+    private final FingerprintTable depths = new FingerprintTable();
+    private final Set<String> successfulLinks = ConcurrentHashMap.newKeySet();
+    private final Map<String, IOException> failedLinks = new ConcurrentHashMap<>();
+    private final Map<Long, byte[]> links = new ConcurrentHashMap<>();
+    private final boolean keepResults;
+
+    /**
+     * Creates store, that keeps results.
+     */
+    /*package-private*/ MemoryCrawlStore() {
+        this(true);
+    }
+
+    /**
+     * Creates store.
+     *
+     * @param keepResults whether downloaded links and errors are kept for {@link #result()}
+     */
+    /*package-private*/ MemoryCrawlStore(final boolean keepResults) {
+        this.keepResults = keepResults;
+    }
+
+    @Override
+    public int raise(final String url, final int depth) {
+        return depths.raise(FingerprintTable.fingerprint(url), depth);
+    }
+
+    @Override
+    public int depth(final String url) {
+        return depths.get(FingerprintTable.fingerprint(url));
+    }
+
+    @Override
+    public void skipped(final String url) {
+    }
+
+    @Override
+    public void downloaded(final String url) {
+        if (keepResults) {
+            successfulLinks.add(url);
+        }
+    }
+
+    @Override
+    public void extracted(final String url, final List<String> links) {
+        this.links.put(FingerprintTable.fingerprint(url), encode(links));
+    }
+
+    @Override
+    public void failed(final String url, final IOException e) {
+        if (keepResults) {
+            failedLinks.put(url, e);
+        }
+    }
+
+    @Override
+    public List<String> links(final String url) {
+        final byte[] encoded = links.get(FingerprintTable.fingerprint(url));
+        return encoded == null ? null : decode(encoded);
+    }
+
+    private static byte[] encode(final List<String> links) {
+        final var out = new ByteArrayOutputStream();
+        for (final String link : links) {
+            final byte[] bytes = link.getBytes(StandardCharsets.UTF_8);
+            int length = bytes.length;
+            while (length >= 0x80) {
+                out.write(length & 0x7F | 0x80);
+                length >>>= 7;
+            }
+            out.write(length);
+            out.writeBytes(bytes);
+        }
+        return out.toByteArray();
+    }
+
+    private static List<String> decode(final byte[] encoded) {
+        final var res = new ArrayList<String>();
+        int i = 0;
+        while (i < encoded.length) {
+            int length = 0;
+            for (int shift = 0; ; shift += 7) {
+                final byte b = encoded[i++];
+                length |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    break;
+                }
+            }
+            res.add(new String(encoded, i, length, StandardCharsets.UTF_8));
+            i += length;
+        }
+        return res;
+    }
+
+    @Override
+    public void resume(final Consumer<String> unfinished, final Consumer<String> extracted) {
+    }
+
+    @Override
+    public Result result() {
+        return new Result(List.copyOf(successfulLinks), failedLinks);
+    }
+
+    @Override
+    public void checkpoint() {
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,213 @@
+package info.kgeorgiy.ja.dmitriev.crawler;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Cache of extracted links of pages, keyed by URL and checked by hash of content of the page.
+ * A re-crawl with the cache takes links of unchanged {@link HashedDocument pages} from it instead of extracting them.
+ * Size of the cache is bounded by an estimate of its heap usage, the least recently used pages are evicted first.
+ * <p>
+ * A cache of a file is read, when it is opened, and is written by {@link #close()},
+ * so the next crawl of the same sites reuses it.
+ *
+ * @author Dmitriev Vladislav (bitree2004@yandex.ru)
+ * @see WebCrawler#download(String, int, java.util.Set, PageCache)
+ * @since 21
+ */
+@SuppressWarnings("unused")
+public class PageCache implements Closeable {
+    // object headers, references and lengths of an entry and of a link
+    private static final int ENTRY_OVERHEAD = 128;
+    private static final int LINK_OVERHEAD = 48;
+
+    private final Path file;
+    private final long maxBytes;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+
+    /**
+     * Creates an empty cache in memory.
+     *
+     * @param maxBytes maximum estimated size of the cache in bytes
+     */
+    public PageCache(final long maxBytes) {
+        this.file = null;
+        this.maxBytes = checkMaxBytes(maxBytes);
+    }
+
+    /**
+     * Opens cache of {@code file}, the file is created by {@link #close()} if it doesn't exist.
+     * If the file is larger than {@code maxBytes}, the least recently used pages are evicted.
+     *
+     * @param file     the file of the cache
+     * @param maxBytes maximum estimated size of the cache in bytes
+     * @throws IOException if an I/O error occurs or the file is broken
+     */
+    public PageCache(final Path file, final long maxBytes) throws IOException {
+        this.file = Objects.requireNonNull(file);
+        this.maxBytes = checkMaxBytes(maxBytes);
+        try (final var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            final int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                final String url = readString(in);
+                final String hash = readString(in);
+                final int size = in.readInt();
+                if (size < 0) {
+                    throw new IOException("Broken page cache " + file);
+                }
+                final var links = new ArrayList<String>(Math.min(size, 1 << 10));
+                for (int j = 0; j < size; j++) {
+                    links.add(readString(in));
+                }
+                add(url, hash, links);
+            }
+        } catch (final NoSuchFileException ignored) {
+            // new cache
+        } catch (final EOFException e) {
+            throw new IOException("Broken page cache " + file, e);
+        }
+    }
+
+    private static long checkMaxBytes(final long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("MaxBytes must be positive!");
+        }
+        return maxBytes;
+    }
+
+    /**
+     * Returns links of {@code url} extracted from a page with the same hash of content.
+     *
+     * @param url  the link
+     * @param hash hash of current content of the page
+     * @return extracted links or {@code null} if the page isn't cached or its content changed
+     */
+    public synchronized List<String> links(final String url, final String hash) {
+        final Entry entry = entries.get(url);
+        return entry != null && entry.hash().equals(hash) ? entry.links() : null;
+    }
+
+    /**
+     * Puts links of {@code url} extracted from a page with content of hash {@code hash}.
+     * A page larger than the whole cache isn't put.
+     *
+     * @param url   the link
+     * @param hash  hash of content of the page
+     * @param links extracted links
+     */
+    public synchronized void put(final String url, final String hash, final List<String> links) {
+        add(url, hash, links);
+    }
+
+    private void add(final String url, final String hash, final List<String> links) {
+        final var entry = new Entry(Objects.requireNonNull(hash), List.copyOf(links), weight(url, hash, links));
+        final Entry old = entries.remove(url);
+        if (old != null) {
+            bytes -= old.bytes();
+        }
+        if (entry.bytes() > maxBytes) {
+            return;
+        }
+        entries.put(url, entry);
+        bytes += entry.bytes();
+        final var iterator = entries.values().iterator();
+        while (bytes > maxBytes) {
+            bytes -= iterator.next().bytes();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Returns number of cached pages.
+     *
+     * @return number of cached pages
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns estimated size of the cache in bytes.
+     *
+     * @return estimated size in bytes
+     */
+    public synchronized long bytes() {
+        return bytes;
+    }
+
+    private static long weight(final String url, final String hash, final List<String> links) {
+        long res = ENTRY_OVERHEAD + url.length() + hash.length();
+        for (final String link : links) {
+            res += LINK_OVERHEAD + link.length();
+        }
+        return res;
+    }
+
+    /**
+     * Writes cache to its file, the least recently used pages first.
+     * The file is replaced atomically, so it isn't broken by a crash.
+     * Cache in memory isn't written.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (file == null) {
+            return;
+        }
+        final Path parent = file.toAbsolutePath().getParent();
+        final Path tmp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try {
+            try (final var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(entries.size());
+                for (final Map.Entry<String, Entry> entry : entries.entrySet()) {
+                    writeString(out, entry.getKey());
+                    writeString(out, entry.getValue().hash());
+                    out.writeInt(entry.getValue().links().size());
+                    for (final String link : entry.getValue().links()) {
+                        writeString(out, link);
+                    }
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static void writeString(final DataOutput out, final String s) throws IOException {
+        final byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(final DataInput in) throws IOException {
+        final int length = in.readInt();
+        if (length < 0) {
+            throw new IOException("Broken page cache");
+        }
+        final byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Cached page.
+     *
+     * @param hash  hash of content
+     * @param links extracted links
+     * @param bytes estimated size in bytes
+     */
+    private record Entry(String hash, List<String> links, long bytes) {
+    }
+}
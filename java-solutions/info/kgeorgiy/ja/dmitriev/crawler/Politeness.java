@@ -0,0 +1,77 @@
+package info.kgeorgiy.ja.dmitriev.crawler;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Limits of download rate of every host.
+ * Downloads of a host start at least {@code minDelay} apart and at most {@code permitsPerSecond}
+ * per second on average, with bursts of up to {@code burst} downloads.
+ *
+ * @param minDelay         minimum time between starts of downloads of a host
+ * @param permitsPerSecond average number of downloads of a host per second
+ * @param burst            size of the token bucket
+ * @author Dmitriev Vladislav (bitree2004@yandex.ru)
+ * @see WebCrawler#WebCrawler(info.kgeorgiy.java.advanced.crawler.Downloader, int, int, int, Politeness)
+ * @since 21
+ */
+public record Politeness(Duration minDelay, double permitsPerSecond, int burst) {
+    /**
+     * No limits of rate.
+     */
+    public static final Politeness NONE = new Politeness(Duration.ZERO, Double.POSITIVE_INFINITY, 1);
+
+    /**
+     * Checks limits.
+     *
+     * @param minDelay         minimum time between starts of downloads of a host
+     * @param permitsPerSecond average number of downloads of a host per second
+     * @param burst            size of the token bucket
+     */
+    public Politeness {
+        Objects.requireNonNull(minDelay);
+        if (minDelay.isNegative()) {
+            throw new IllegalArgumentException("MinDelay must be non-negative!");
+        }
+        if (!(permitsPerSecond > 0)) {
+            throw new IllegalArgumentException("PermitsPerSecond must be positive!");
+        }
+        if (burst <= 0) {
+            throw new IllegalArgumentException("Burst must be positive integer!");
+        }
+    }
+
+    /**
+     * Returns limits with only minimum delay between downloads of a host.
+     *
+     * @param minDelay minimum time between starts of downloads of a host
+     * @return new limits
+     */
+    public static Politeness minDelay(final Duration minDelay) {
+        return new Politeness(minDelay, Double.POSITIVE_INFINITY, 1);
+    }
+
+    /**
+     * Returns limits with only token bucket of every host.
+     *
+     * @param permitsPerSecond average number of downloads of a host per second
+     * @param burst            size of the token bucket
+     * @return new limits
+     */
+    public static Politeness rate(final double permitsPerSecond, final int burst) {
+        return new Politeness(Duration.ZERO, permitsPerSecond, burst);
+    }
+
+    /*package-private*/ long minDelayNanos() {
+        return minDelay.toNanos();
+    }
+
+    // time between downloads at the average rate
+    /*package-private*/ long intervalNanos() {
+        return Double.isInfinite(permitsPerSecond) ? 0 : (long) (1e9 / permitsPerSecond);
+    }
+
+    /*package-private*/ boolean isLimited() {
+        return minDelayNanos() > 0 || intervalNanos() > 0;
+    }
+}
@@ -5,8 +5,10 @@ import info.kgeorgiy.java.advanced.crawler.*;
 import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.stream.Collectors;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 
 /**
  * Is an instance of {@link Crawler}.
@@ -21,8 +23,9 @@ public class WebCrawler implements AdvancedCrawler {
     private final Downloader downloader;
     private final ExecutorService downloadService;
     private final ExecutorService executorService;
-    private final int perHost;
-    private final Map<String, DownloaderQueue> hostRestrictions = new ConcurrentHashMap<>();
+    // delay queue of downloads, that wait for politeness limits
+    private final ScheduledExecutorService timer;
+    private final HostLimiter hostLimiter;
 
     /**
      * Creates an instance with arguments to work with.
@@ -37,14 +40,122 @@ public class WebCrawler implements AdvancedCrawler {
             final int downloaders,
             final int extractors,
             final int perHost
+    ) {
+        this(downloader, downloaders, extractors, perHost, Politeness.NONE);
+    }
+
+    /**
+     * Creates an instance, that limits rate of downloads of every host.
+     * Downloads, that wait for limits, don't occupy downloaders, so pages of other hosts are downloaded meanwhile.
+     *
+     * @param downloader  allows you to download pages and extract links from them
+     * @param downloaders maximum number of simultaneously loaded pages
+     * @param extractors  maximum number of pages from which links are retrieved simultaneously
+     * @param perHost     the maximum number of pages downloaded simultaneously from one host
+     * @param politeness  limits of rate of downloads of one host
+     */
+    public WebCrawler(
+            final Downloader downloader,
+            final int downloaders,
+            final int extractors,
+            final int perHost,
+            final Politeness politeness
+    ) {
+        this(downloader, downloaders, extractors, perHost, politeness, false);
+    }
+
+    private WebCrawler(
+            final Downloader downloader,
+            final int downloaders,
+            final int extractors,
+            final int perHost,
+            final Politeness politeness,
+            final boolean virtualThreads
     ) {
         checkIntegerNumber(downloaders, "Downloaders");
         checkIntegerNumber(extractors, "Extractors");
         checkIntegerNumber(perHost, "PerHost");
         this.downloader = downloader;
-        this.downloadService = Executors.newFixedThreadPool(downloaders);
         this.executorService = Executors.newFixedThreadPool(extractors);
-        this.perHost = perHost;
+        this.timer = politeness.isLimited() ? Executors.newSingleThreadScheduledExecutor() : null;
+        if (virtualThreads) {
+            this.downloadService = Executors.newVirtualThreadPerTaskExecutor();
+            this.hostLimiter = new HostLimiter(limit(downloadService, downloaders), perHost, politeness, timer);
+        } else {
+            this.downloadService = Executors.newFixedThreadPool(downloaders);
+            this.hostLimiter = new HostLimiter(downloadService, perHost, politeness, timer);
+        }
+    }
+
+    /**
+     * Creates an instance, that downloads every page in a new virtual thread.
+     * Downloads are limited only by {@code downloaders} and {@code perHost}, not by size of a pool,
+     * so large {@code downloaders} suit slow hosts without a platform thread per download.
+     * Downloads, that wait for {@code downloaders}, are queued without threads.
+     * Links are extracted by a pool of {@code extractors} platform threads.
+     *
+     * @param downloader  allows you to download pages and extract links from them
+     * @param downloaders maximum number of simultaneously loaded pages
+     * @param extractors  maximum number of pages from which links are retrieved simultaneously
+     * @param perHost     the maximum number of pages downloaded simultaneously from one host
+     * @param politeness  limits of rate of downloads of one host
+     * @return new {@link WebCrawler}
+     */
+    public static WebCrawler newVirtualThreadPerTask(
+            final Downloader downloader,
+            final int downloaders,
+            final int extractors,
+            final int perHost,
+            final Politeness politeness
+    ) {
+        return new WebCrawler(downloader, downloaders, extractors, perHost, politeness, true);
+    }
+
+    // runs at most permits tasks of service simultaneously, other tasks wait in a queue without threads;
+    // tasks, that are queued when service is shut down, run in the thread, that finds it out
+    private static Executor limit(final ExecutorService service, final int permits) {
+        final var semaphore = new Semaphore(permits);
+        final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+        return new Executor() {
+            @Override
+            public void execute(final Runnable task) {
+                if (service.isShutdown()) {
+                    throw new RejectedExecutionException("Downloads are shut down");
+                }
+                queue.add(task);
+                startQueued();
+            }
+
+            // a task is added before the permit is tried and a permit is released before the queue is checked,
+            // so a queued task isn't left without a permit
+            private void startQueued() {
+                while (!queue.isEmpty() && semaphore.tryAcquire()) {
+                    final Runnable next = queue.poll();
+                    if (next == null) {
+                        semaphore.release();
+                        continue;
+                    }
+                    try {
+                        service.execute(() -> run(next));
+                    } catch (final RejectedExecutionException e) {
+                        try {
+                            next.run();
+                        } finally {
+                            semaphore.release();
+                        }
+                    }
+                }
+            }
+
+            private void run(final Runnable task) {
+                try {
+                    task.run();
+                } finally {
+                    semaphore.release();
+                    startQueued();
+                }
+            }
+        };
     }
 
     /**
@@ -94,7 +205,113 @@ public class WebCrawler implements AdvancedCrawler {
     @Override
     public Result download(final String url, final int depth, final Set<String> excludes) {
         checkCollection(excludes);
-        return new CrawlerTask(null, new ArrayList<>(excludes)).getHost(url, depth);
+        return new CrawlerTask(null, new ArrayList<>(excludes), new MemoryCrawlStore(), null, null, null)
+                .crawl(url, depth);
+    }
+
+    /**
+     * Downloads pages like {@link #download(String, int, Set)}, keeping state of the crawl in {@code store}.
+     * If {@code store} has state of an interrupted crawl with the same arguments, the crawl is resumed.
+     * {@code store} isn't closed.
+     *
+     * @param url      start URL
+     * @param depth    download depth
+     * @param excludes URLs containing one of given substrings are ignored
+     * @param store    state of the crawl, for example {@link DiskCrawlStore}
+     * @return download result
+     */
+    public Result download(final String url, final int depth, final Set<String> excludes, final CrawlStore store) {
+        checkCollection(excludes);
+        return new CrawlerTask(null, new ArrayList<>(excludes), Objects.requireNonNull(store), null, null, null)
+                .crawl(url, depth);
+    }
+
+    /**
+     * Downloads pages like {@link #download(String, int, Set)}, taking links of unchanged pages from {@code cache}.
+     * Links of a downloaded {@link HashedDocument} are taken from the cache, if it has the same hash of content,
+     * otherwise they are extracted and put to the cache. Other documents aren't cached.
+     * {@code cache} isn't closed.
+     *
+     * @param url      start URL
+     * @param depth    download depth
+     * @param excludes URLs containing one of given substrings are ignored
+     * @param cache    links of previously downloaded pages
+     * @return download result
+     */
+    public Result download(final String url, final int depth, final Set<String> excludes, final PageCache cache) {
+        checkCollection(excludes);
+        Objects.requireNonNull(cache);
+        return new CrawlerTask(null, new ArrayList<>(excludes), new MemoryCrawlStore(), null, cache, null)
+                .crawl(url, depth);
+    }
+
+    /**
+     * Downloads pages like {@link #download(String, int, Set)} and passes outcome of every link to {@code listener}
+     * as soon as it is known. Downloaded links and errors aren't collected, but memory still grows with the crawl:
+     * fingerprints of reached links and extracted links of every page are kept till the end.
+     * {@code listener} is called concurrently by threads of the crawler and shouldn't throw.
+     *
+     * @param url      start URL
+     * @param depth    download depth
+     * @param excludes URLs containing one of given substrings are ignored
+     * @param listener consumer of outcomes
+     */
+    public void crawl(
+            final String url,
+            final int depth,
+            final Set<String> excludes,
+            final Consumer<? super CrawlEvent> listener
+    ) {
+        checkCollection(excludes);
+        Objects.requireNonNull(listener);
+        crawl(url, depth, excludes, listener, null);
+    }
+
+    private void crawl(
+            final String url,
+            final int depth,
+            final Set<String> excludes,
+            final Consumer<? super CrawlEvent> listener,
+            final BooleanSupplier cancelled
+    ) {
+        new CrawlerTask(null, new ArrayList<>(excludes), new MemoryCrawlStore(false), listener, null, cancelled)
+                .crawl(url, depth);
+    }
+
+    /**
+     * Returns publisher of outcomes of links like {@link #crawl(String, int, Set, Consumer)}.
+     * The crawl starts, when the first subscriber subscribes, later subscribers get only later outcomes.
+     * The crawl stops, when all subscribers cancel their subscriptions, pages, that are being downloaded, are finished.
+     * Publisher completes after the crawl.
+     * <p>
+     * Threads of the crawler wait, while a subscriber doesn't request outcomes and its buffer is full.
+     * It is backpressure for the crawl, but downloads and extractions of other crawls of this crawler wait too,
+     * so a slow subscriber should have a dedicated crawler.
+     *
+     * @param url      start URL
+     * @param depth    download depth
+     * @param excludes URLs containing one of given substrings are ignored
+     * @return publisher of outcomes
+     */
+    public Flow.Publisher<CrawlEvent> crawl(final String url, final int depth, final Set<String> excludes) {
+        checkCollection(excludes);
+        checkIntegerNumber(depth, "Depth");
+        final var publisher = new SubmissionPublisher<CrawlEvent>();
+        final var started = new AtomicBoolean(false);
+        return subscriber -> {
+            publisher.subscribe(subscriber);
+            if (!started.getAndSet(true)) {
+                Thread.ofVirtual().start(() -> {
+                    try {
+                        crawl(url, depth, excludes, publisher::submit,
+                              () -> publisher.getNumberOfSubscribers() == 0);
+                        publisher.close();
+                    } catch (final RuntimeException e) {
+                        publisher.closeExceptionally(e);
+                    }
+                });
+            }
+        };
     }
 
     @Override
@@ -102,11 +319,15 @@ public class WebCrawler implements AdvancedCrawler {
         checkCollection(hosts);
         final var set = new HashSet<String>();
         set.addAll(hosts);
-        return new CrawlerTask(set, List.of()).getHost(url, depth);
+        return new CrawlerTask(set, List.of(), new MemoryCrawlStore(), null, null, null).crawl(url, depth);
     }
 
     @Override
     public void close() {
+        if (timer != null) {
+            // delayed downloads are passed to downloadService before it is closed
+            close(timer);
+        }
         close(downloadService);
         close(executorService);
     }
@@ -140,153 +361,192 @@ public class WebCrawler implements AdvancedCrawler {
         }
     }
 
-    private class DownloaderQueue {
-        private final AtomicInteger cnt = new AtomicInteger(0);
-        private final AtomicInteger wait = new AtomicInteger(0);
-        private final String host;
-        private final Queue<Runnable> runnables = new ArrayDeque<>();
-
-        private DownloaderQueue(final String host) {
-            this.host = host;
-        }
-
-        private synchronized void run() {
-            if (cnt.get() < perHost) {
-                final var runnable = runnables.poll();
-                if (runnable != null) {
-                    cnt.incrementAndGet();
-                    downloadService.submit(() -> {
-                        runnable.run();
-                        cnt.decrementAndGet();
-                        run();
-                    });
-                }
-            }
-        }
-
-        private synchronized void add(final Runnable runnable) {
-            runnables.add(runnable);
-            run();
-        }
-
-        private void delete() {
-            hostRestrictions.compute(host, (k, v) -> {
-                if (cnt.get() + wait.get() == 0) {
-                    v = null;
-                }
-                return v;
-            });
-        }
-    }
-
+    /**
+     * Crawl without barriers between layers: links are downloaded as soon as they are extracted.
+     * Every link keeps the greatest remaining depth, with which it was reached.
+     * If a downloaded page is reached again by a shorter path, its links are visited again
+     * with the greater depth, so the result is the same as of breadth-first search.
+     */
     private class CrawlerTask {
-        private final Set<String> successfulLinks = ConcurrentHashMap.newKeySet();
-        private final Set<String> notProcessed = ConcurrentHashMap.newKeySet();
-        private final Map<String, IOException> failedLinks = new ConcurrentHashMap<>();
-        private final Set<String> visitedHost = ConcurrentHashMap.newKeySet();
         private final Set<String> hosts;
         private final List<String> excludes;
-        private final ConcurrentLinkedQueue<String> layer = new ConcurrentLinkedQueue<>();
-        private Phaser layerPhaser;
+        // remaining depths, extracted links and results
+        private final CrawlStore store;
+        private final Consumer<? super CrawlEvent> listener;
+        private final PageCache cache;
+        private final BooleanSupplier cancelled;
+        // submitted and not finished tasks
+        private final AtomicInteger pending = new AtomicInteger(0);
+        private final CountDownLatch finished = new CountDownLatch(1);
 
-        private CrawlerTask(final Set<String> hosts, final List<String> excludes) {
+        private CrawlerTask(
+                final Set<String> hosts,
+                final List<String> excludes,
+                final CrawlStore store,
+                final Consumer<? super CrawlEvent> listener,
+                final PageCache cache,
+                final BooleanSupplier cancelled
+        ) {
             this.hosts = hosts;
             this.excludes = excludes;
+            this.store = store;
+            this.listener = listener;
+            this.cache = cache;
+            this.cancelled = cancelled;
+        }
+
+        // new downloads of a cancelled crawl don't start, started ones are finished
+        private boolean isCancelled() {
+            return cancelled != null && cancelled.getAsBoolean();
+        }
+
+        private void emit(final CrawlEvent event) {
+            if (listener != null) {
+                listener.accept(event);
+            }
         }
 
         private void addFailed(final String link, final IOException e) {
-            failedLinks.put(link, e);
+            store.failed(link, e);
+            emit(new CrawlEvent.Failed(link, e));
+        }
+
+        private void addSkipped(final String link) {
+            store.skipped(link);
+            emit(new CrawlEvent.Skipped(link));
         }
 
         private boolean isExcludes(final String link) {
             return excludes.stream().anyMatch(link::contains);
         }
 
-        private void download(final String link, final String host) {
-            boolean isFailed = true;
+        private void submit(final ExecutorService service, final Runnable task) {
+            pending.incrementAndGet();
             try {
-                final var doc = downloader.download(link);
-                successfulLinks.add(link);
-                executorService.submit(() -> extractLinks(doc, link));
-                isFailed = false;
-            } catch (final IOException e) {
-                addFailed(link, e);
-            } finally {
-                if (isFailed) {
-                    layerPhaser.arrive();
-                }
+                service.submit(() -> {
+                    try {
+                        task.run();
+                    } finally {
+                        done();
+                    }
+                });
+            } catch (final RejectedExecutionException e) {
+                done();
+            }
+        }
+
+        private void done() {
+            if (pending.decrementAndGet() == 0) {
+                finished.countDown();
             }
         }
 
-        private DownloaderQueue getDownloadQueue(final String host) {
-            return hostRestrictions.computeIfAbsent(host, (x) -> new DownloaderQueue(host));
+        private void visit(final String link, final int depth) {
+            final int old = store.raise(link, depth);
+            if (old == 0) {
+                start(link);
+            } else if (old < depth) {
+                reexpand(link);
+            }
+        }
+
+        private void reexpand(final String link) {
+            final var pageLinks = store.links(link);
+            if (pageLinks != null) {
+                expand(pageLinks, store.depth(link));
+            }
         }
 
-        private void getHost(final String link) {
-            boolean isFailed = true;
+        private void start(final String link) {
+            if (isCancelled()) {
+                return;
+            }
             try {
                 if (isExcludes(link)) {
-                    notProcessed.add(link);
+                    addSkipped(link);
                     return;
                 }
                 final var host = URLUtils.getHost(link);
                 if (hosts != null && !hosts.contains(host)) {
-                    notProcessed.add(link);
+                    addSkipped(link);
                     return;
                 }
-                visitedHost.add(host);
-                final Runnable runnable = () -> download(link, host);
-                final var downloaderQueue = hostRestrictions.compute(host, (k, v) -> {
-                    if (v == null) {
-                        v = new DownloaderQueue(host);
+                pending.incrementAndGet();
+                hostLimiter.submit(host, () -> {
+                    try {
+                        download(link);
+                    } finally {
+                        done();
                     }
-                    v.wait.incrementAndGet();
-                    return v;
-                });
-                downloaderQueue.add(runnable);
-                downloaderQueue.wait.decrementAndGet();
-                isFailed = false;
+                }, this::done);
             } catch (final IOException e) {
                 addFailed(link, e);
-            } finally {
-                if (isFailed) {
-                    layerPhaser.arrive();
+            }
+        }
+
+        private void download(final String link) {
+            if (isCancelled()) {
+                return;
+            }
+            try {
+                final var doc = downloader.download(link);
+                store.downloaded(link);
+                emit(new CrawlEvent.Downloaded(link));
+                final String hash = cache != null && doc instanceof HashedDocument hashed ? hashed.contentHash() : null;
+                final var cachedLinks = hash != null ? cache.links(link, hash) : null;
+                if (cachedLinks != null) {
+                    // the page didn't change, so the extractor isn't needed
+                    extracted(link, cachedLinks);
+                } else {
+                    submit(executorService, () -> extractLinks(doc, link, hash));
                 }
+            } catch (final IOException e) {
+                addFailed(link, e);
             }
         }
 
-        private void extractLinks(final Document doc, final String link) {
+        private void extractLinks(final Document doc, final String link, final String hash) {
             try {
-                layer.addAll(doc.extractLinks());
+                final var pageLinks = doc.extractLinks();
+                if (hash != null) {
+                    cache.put(link, hash, pageLinks);
+                }
+                extracted(link, pageLinks);
             } catch (final IOException e) {
                 addFailed(link, e);
-            } finally {
-                layerPhaser.arrive();
             }
         }
 
-        private Set<String> downloadLayer(final Set<String> linksToVisit) {
-            layerPhaser = new Phaser(linksToVisit.size() + 1);
-            layer.clear();
-            linksToVisit
-                    .forEach(link -> downloadService.submit(() -> getHost(link)));
-            // start execution
-            layerPhaser.arriveAndAwaitAdvance();
-            return layer.stream()
-                    .filter(x -> !successfulLinks.contains(x)
-                            && !failedLinks.containsKey(x)
-                            && !notProcessed.contains(x))
-                    .collect(Collectors.toCollection(HashSet::new));
+        private void extracted(final String link, final List<String> pageLinks) {
+            store.extracted(link, pageLinks);
+            // read after store, so a concurrent raise of depth is seen here or by visit
+            expand(pageLinks, store.depth(link));
+        }
+
+        private void expand(final List<String> pageLinks, final int depth) {
+            if (depth > 1) {
+                pageLinks.forEach(x -> visit(x, depth - 1));
+            }
         }
 
-        private Result getHost(final String link, final int depth) {
+        private Result crawl(final String link, final int depth) {
             checkIntegerNumber(depth, "Depth");
-            var actualSet = Set.of(link);
-            for (int i = 0; i < depth; i++) {
-                actualSet = downloadLayer(actualSet);
+            pending.incrementAndGet();
+            store.resume(this::start, this::reexpand);
+            visit(link, depth);
+            done();
+            boolean interrupted = false;
+            while (finished.getCount() > 0) {
+                try {
+                    finished.await();
+                } catch (final InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
             }
-            visitedHost.forEach(x -> hostRestrictions.get(x).delete());
-            return new Result(List.copyOf(successfulLinks), failedLinks);
+            return store.result();
         }
     }
 }
@@ -0,0 +1,533 @@
+package info.kgeorgiy.ja.dmitriev.crawler.test;
+
+import info.kgeorgiy.ja.dmitriev.crawler.CrawlEvent;
+import info.kgeorgiy.ja.dmitriev.crawler.DiskCrawlStore;
+import info.kgeorgiy.ja.dmitriev.crawler.HashedDocument;
+import info.kgeorgiy.ja.dmitriev.crawler.PageCache;
+import info.kgeorgiy.ja.dmitriev.crawler.Politeness;
+import info.kgeorgiy.ja.dmitriev.crawler.WebCrawler;
+import info.kgeorgiy.java.advanced.crawler.Document;
+import info.kgeorgiy.java.advanced.crawler.Downloader;
+import info.kgeorgiy.java.advanced.crawler.Result;
+import info.kgeorgiy.java.advanced.crawler.URLUtils;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.Serial;
+import java.io.UncheckedIOException;
+import java.net.MalformedURLException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests of {@link WebCrawler} on a generated site.
+ *
+ * @author Dmitriev Vladislav (bitree2004@yandex.ru)
+ * @since 21
+ */
+@TestMethodOrder(MethodOrderer.MethodName.class)
+public class WebCrawlerTest {
+    /**
+     * Number of hosts of the site.
+     */
+    protected static final int HOSTS = 4;
+    /**
+     * Number of pages of the site.
+     */
+    protected static final int PAGES = 200;
+    /**
+     * Pages, which can't be downloaded.
+     */
+    protected static final String MISSING = "missing";
+
+    /**
+     * Checks, that result is the same as of breadth-first search for different limits,
+     * and that no more than {@code downloaders} pages are downloaded simultaneously.
+     */
+    @Test
+    public void test1_result() {
+        for (final int depth : new int[]{1, 2, 3, 10}) {
+            final var downloader = new SiteDownloader(0);
+            final Result expected = downloader.expected(depth, Set.of("page7"));
+            for (final int perHost : new int[]{1, 3, 100}) {
+                try (final var crawler = new WebCrawler(downloader, 10, 3, perHost)) {
+                    checkResult(expected, crawler.download(url(0), depth, Set.of("page7")));
+                }
+                checkLimits(downloader, 10, 100);
+            }
+        }
+    }
+
+    /**
+     * Checks, that an interrupted crawl is resumed from {@link DiskCrawlStore} and errors keep their classes.
+     */
+    @Test
+    public void test2_diskStore() throws IOException {
+        final Path directory = Files.createTempDirectory("crawl");
+        try {
+            final var downloader = new SiteDownloader(5);
+            final Result expected = downloader.expected(20, Set.of());
+            try (final var store = new DiskCrawlStore(directory)) {
+                final var crawler = new WebCrawler(downloader, 1, 1, 1);
+                final Thread crawl = Thread.ofPlatform().start(() -> crawler.download(url(0), 20, Set.of(), store));
+                sleep(100);
+                crawler.close();
+                join(crawl);
+            }
+            Assertions.assertTrue(downloader.downloads.get() < PAGES / 2, "Crawl wasn't interrupted");
+            try (final var store = new DiskCrawlStore(directory);
+                 final var crawler = new WebCrawler(downloader, 10, 3, 3)) {
+                checkResult(expected, crawler.download(url(0), 20, Set.of(), store));
+            }
+            Assertions.assertTrue(downloader.downloads.get() < PAGES * 3 / 2, "Crawl wasn't resumed");
+            final int finished = downloader.downloads.get();
+            try (final var store = new DiskCrawlStore(directory);
+                 final var crawler = new WebCrawler(downloader, 10, 3, 3)) {
+                checkResult(expected, store.result());
+                checkResult(expected, crawler.download(url(0), 20, Set.of(), store));
+            }
+            Assertions.assertEquals(finished, downloader.downloads.get());
+        } finally {
+            delete(directory);
+        }
+    }
+
+    /**
+     * Checks, that {@link DiskCrawlStore} restores only platform classes of errors,
+     * and that concurrent records of many threads are all kept.
+     */
+    @Test
+    public void test3_diskStoreRecords() throws IOException, InterruptedException {
+        final Path directory = Files.createTempDirectory("crawl");
+        try {
+            final int threads = 8;
+            final int perThread = 2000;
+            try (final var store = new DiskCrawlStore(directory, threads * perThread)) {
+                final List<Thread> writers = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    final int thread = t;
+                    writers.add(Thread.ofPlatform().start(() -> {
+                        for (int i = thread; i < threads * perThread; i += threads) {
+                            Assertions.assertEquals(0, store.raise(url(i), 1));
+                            store.downloaded(url(i));
+                            store.extracted(url(i), List.of(url(i + 1)));
+                        }
+                    }));
+                }
+                for (final Thread writer : writers) {
+                    writer.join();
+                }
+                store.raise("http://a.test/custom", 1);
+                store.failed("http://a.test/custom", new CustomException("custom"));
+                store.raise("http://a.test/missing", 1);
+                store.failed("http://a.test/missing", new FileNotFoundException("missing"));
+            }
+            try (final var store = new DiskCrawlStore(directory)) {
+                final Result result = store.result();
+                Assertions.assertEquals(threads * perThread, result.getDownloaded().size());
+                for (int i = 0; i < threads * perThread; i++) {
+                    Assertions.assertEquals(List.of(url(i + 1)), store.links(url(i)));
+                }
+                Assertions.assertEquals(IOException.class, result.getErrors().get("http://a.test/custom").getClass());
+                Assertions.assertEquals("custom", result.getErrors().get("http://a.test/custom").getMessage());
+                Assertions.assertEquals(FileNotFoundException.class,
+                                        result.getErrors().get("http://a.test/missing").getClass());
+            }
+        } finally {
+            delete(directory);
+        }
+    }
+
+    /**
+     * Checks, that every page is downloaded once, though most pages are linked from several pages.
+     */
+    @Test
+    public void test4_downloadedOnce() {
+        final var downloader = new SiteDownloader(0);
+        final Result expected = downloader.expected(20, Set.of());
+        try (final var crawler = new WebCrawler(downloader, 10, 3, 3)) {
+            checkResult(expected, crawler.download(url(0), 20, Set.of()));
+        }
+        Assertions.assertEquals(expected.getDownloaded().size() + expected.getErrors().size(),
+                                downloader.downloads.get());
+    }
+
+    /**
+     * Checks, that no more than {@code perHost} pages of one host are downloaded simultaneously.
+     */
+    @Test
+    public void test5_perHost() {
+        for (final int perHost : new int[]{1, 2, 5}) {
+            final var downloader = new SiteDownloader(5);
+            try (final var crawler = new WebCrawler(downloader, 20, 3, perHost)) {
+                checkResult(downloader.expected(3, Set.of()), crawler.download(url(0), 3, Set.of()));
+            }
+            checkLimits(downloader, 20, perHost);
+        }
+    }
+
+    /**
+     * Checks, that downloads of one host start no more often than minimal delay or rate allow.
+     */
+    @Test
+    public void test6_politeness() {
+        final Duration delay = Duration.ofMillis(20);
+        for (final Politeness politeness : List.of(Politeness.minDelay(delay), Politeness.rate(50, 1))) {
+            final var downloader = new SiteDownloader(0);
+            try (final var crawler = new WebCrawler(downloader, 10, 3, 3, politeness)) {
+                checkResult(downloader.expected(2, Set.of()), crawler.download(url(0), 2, Set.of()));
+            }
+            for (final Queue<Long> starts : downloader.starts.values()) {
+                final List<Long> sorted = starts.stream().sorted().toList();
+                for (int i = 1; i < sorted.size(); i++) {
+                    // timer of the crawler may fire up to a millisecond early
+                    Assertions.assertTrue(sorted.get(i) - sorted.get(i - 1) >= delay.toNanos() - 1_000_000,
+                                          "Downloads of a host started too often");
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks, that closing the crawler during a crawl doesn't hang the crawl.
+     */
+    @Test
+    public void test7_closeDuringCrawl() {
+        Assertions.assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            final var downloader = new SiteDownloader(10);
+            final var crawler = new WebCrawler(downloader, 2, 1, 1);
+            final Thread crawl = Thread.ofPlatform().start(() -> crawler.download(url(0), 10, Set.of()));
+            Thread.sleep(50);
+            crawler.close();
+            crawl.join();
+        });
+    }
+
+    /**
+     * Checks, that outcomes passed to a listener and to subscribers of a publisher are the same as the result.
+     */
+    @Test
+    public void test8_streaming() throws InterruptedException, ExecutionException {
+        final var downloader = new SiteDownloader(0);
+        final Result expected = downloader.expected(10, Set.of("page7"));
+        try (final var crawler = new WebCrawler(downloader, 10, 3, 3)) {
+            final Queue<CrawlEvent> events = new ConcurrentLinkedQueue<>();
+            crawler.crawl(url(0), 10, Set.of("page7"), events::add);
+            checkEvents(expected, events);
+
+            final Queue<CrawlEvent> published = new ConcurrentLinkedQueue<>();
+            final var completed = new CompletableFuture<Void>();
+            crawler.crawl(url(0), 10, Set.of("page7")).subscribe(new Flow.Subscriber<>() {
+                @Override
+                public void onSubscribe(final Flow.Subscription subscription) {
+                    subscription.request(Long.MAX_VALUE);
+                }
+
+                @Override
+                public void onNext(final CrawlEvent item) {
+                    published.add(item);
+                }
+
+                @Override
+                public void onError(final Throwable throwable) {
+                    completed.completeExceptionally(throwable);
+                }
+
+                @Override
+                public void onComplete() {
+                    completed.complete(null);
+                }
+            });
+            completed.get();
+            checkEvents(expected, published);
+        }
+    }
+
+    /**
+     * Checks, that the crawl stops, when the subscriber cancels its subscription.
+     */
+    @Test
+    public void test9_cancelledSubscription() throws InterruptedException {
+        final var downloader = new SiteDownloader(5);
+        try (final var crawler = new WebCrawler(downloader, 1, 1, 1)) {
+            final var cancelled = new CountDownLatch(1);
+            crawler.crawl(url(0), 20, Set.of()).subscribe(new Flow.Subscriber<>() {
+                private Flow.Subscription subscription;
+                private int received;
+
+                @Override
+                public void onSubscribe(final Flow.Subscription subscription) {
+                    this.subscription = subscription;
+                    subscription.request(1);
+                }
+
+                @Override
+                public void onNext(final CrawlEvent item) {
+                    if (++received == 3) {
+                        subscription.cancel();
+                        cancelled.countDown();
+                    } else {
+                        subscription.request(1);
+                    }
+                }
+
+                @Override
+                public void onError(final Throwable throwable) {
+                }
+
+                @Override
+                public void onComplete() {
+                }
+            });
+            cancelled.await();
+            // pages, that are being downloaded, are finished
+            Thread.sleep(100);
+            final int downloads = downloader.downloads.get();
+            Thread.sleep(100);
+            Assertions.assertEquals(downloads, downloader.downloads.get());
+            Assertions.assertTrue(downloads < PAGES / 2, "Crawl wasn't stopped");
+        }
+    }
+
+    /**
+     * Checks, that the crawler with virtual threads has the same result and limits, and can be closed during a crawl.
+     */
+    @Test
+    public void test10_virtualThreads() {
+        final var downloader = new SiteDownloader(5);
+        try (final var crawler = WebCrawler.newVirtualThreadPerTask(downloader, 7, 3, 2, Politeness.NONE)) {
+            checkResult(downloader.expected(3, Set.of()), crawler.download(url(0), 3, Set.of()));
+        }
+        checkLimits(downloader, 7, 2);
+
+        Assertions.assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            final var slow = new SiteDownloader(10);
+            final var crawler = WebCrawler.newVirtualThreadPerTask(slow, 2, 1, 1, Politeness.NONE);
+            final Thread crawl = Thread.ofPlatform().start(() -> crawler.download(url(0), 10, Set.of()));
+            Thread.sleep(50);
+            crawler.close();
+            crawl.join();
+            checkLimits(slow, 2, 1);
+        });
+    }
+
+    /**
+     * Checks, that links of unchanged pages are taken from {@link PageCache}.
+     */
+    @Test
+    public void test11_pageCache() {
+        final var downloader = new SiteDownloader(0);
+        final Result expected = downloader.expected(3, Set.of());
+        final var cache = new PageCache(1 << 20);
+        try (final var crawler = new WebCrawler(downloader, 10, 3, 3)) {
+            checkResult(expected, crawler.download(url(0), 3, Set.of(), cache));
+            final int extracted = downloader.extractions.get();
+            Assertions.assertTrue(cache.size() > 0);
+            checkResult(expected, crawler.download(url(0), 3, Set.of(), cache));
+            Assertions.assertEquals(extracted, downloader.extractions.get());
+        }
+    }
+
+    /**
+     * Checks, that {@link PageCache} with a file keeps links of pages between crawlers.
+     */
+    @Test
+    public void test12_pageCacheFile() throws IOException {
+        final Path directory = Files.createTempDirectory("cache");
+        try {
+            final var downloader = new SiteDownloader(0);
+            final Result expected = downloader.expected(3, Set.of());
+            final Path file = directory.resolve("pages");
+            try (final var cache = new PageCache(file, 1 << 20);
+                 final var crawler = new WebCrawler(downloader, 10, 3, 3)) {
+                checkResult(expected, crawler.download(url(0), 3, Set.of(), cache));
+            }
+            final int extracted = downloader.extractions.get();
+            try (final var cache = new PageCache(file, 1 << 20);
+                 final var crawler = new WebCrawler(downloader, 10, 3, 3)) {
+                checkResult(expected, crawler.download(url(0), 3, Set.of(), cache));
+            }
+            Assertions.assertEquals(extracted, downloader.extractions.get());
+        } finally {
+            delete(directory);
+        }
+    }
+
+    private static String url(final int page) {
+        return "http://host" + page % HOSTS + ".test/page" + page + ".html";
+    }
+
+    private static String host(final String url) {
+        try {
+            return URLUtils.getHost(url);
+        } catch (final MalformedURLException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static void checkResult(final Result expected, final Result actual) {
+        Assertions.assertEquals(new TreeSet<>(expected.getDownloaded()), new TreeSet<>(actual.getDownloaded()));
+        Assertions.assertEquals(expected.getDownloaded().size(), actual.getDownloaded().size());
+        Assertions.assertEquals(expected.getErrors().keySet(), actual.getErrors().keySet());
+        for (final var entry : expected.getErrors().entrySet()) {
+            Assertions.assertEquals(entry.getValue().getClass(), actual.getErrors().get(entry.getKey()).getClass());
+            Assertions.assertEquals(entry.getValue().getMessage(), actual.getErrors().get(entry.getKey()).getMessage());
+        }
+    }
+
+    private static void checkEvents(final Result expected, final Collection<CrawlEvent> events) {
+        final List<String> downloaded = new ArrayList<>();
+        final Map<String, IOException> errors = new HashMap<>();
+        for (final CrawlEvent event : events) {
+            switch (event) {
+                case CrawlEvent.Downloaded(String url) -> downloaded.add(url);
+                case CrawlEvent.Failed(String url, IOException error) -> errors.put(url, error);
+                case CrawlEvent.Skipped(String url) -> Assertions.assertTrue(url.contains("page7"));
+            }
+        }
+        checkResult(expected, new Result(downloaded, errors));
+    }
+
+    private static void checkLimits(final SiteDownloader downloader, final int downloaders, final int perHost) {
+        Assertions.assertTrue(downloader.maxTotal.get() <= downloaders, "Too many downloads");
+        for (final var max : downloader.maxPerHost.values()) {
+            Assertions.assertTrue(max.get() <= perHost, "Too many downloads of one host");
+        }
+    }
+
+    private static void sleep(final long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void join(final Thread thread) {
+        try {
+            thread.join();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void delete(final Path directory) throws IOException {
+        try (final var files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> {
+                try {
+                    Files.delete(file);
+                } catch (final IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    // an error, that isn't restored by its class
+    private static class CustomException extends IOException {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private CustomException(final String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Downloader of a generated site, that records concurrency of downloads.
+     * Page {@code i} links to pages {@code 2i + 1}, {@code 2i + 2} and {@code i / 2},
+     * every tenth page is {@link #MISSING}.
+     */
+    private static class SiteDownloader implements Downloader {
+        private final long millis;
+        private final AtomicInteger downloads = new AtomicInteger();
+        private final AtomicInteger extractions = new AtomicInteger();
+        private final AtomicInteger total = new AtomicInteger();
+        private final AtomicInteger maxTotal = new AtomicInteger();
+        private final Map<String, AtomicInteger> perHost = new ConcurrentHashMap<>();
+        private final Map<String, AtomicInteger> maxPerHost = new ConcurrentHashMap<>();
+        private final Map<String, Queue<Long>> starts = new ConcurrentHashMap<>();
+
+        private SiteDownloader(final long millis) {
+            this.millis = millis;
+        }
+
+        private static int page(final String url) {
+            return Integer.parseInt(url.substring(url.lastIndexOf("page") + 4, url.lastIndexOf('.')));
+        }
+
+        private static List<String> links(final int page) {
+            return List.of(url(page / 2), url(2 * page + 1), url(2 * page + 2)).stream()
+                    .filter(link -> page(link) < PAGES)
+                    .toList();
+        }
+
+        @Override
+        public Document download(final String url) throws IOException {
+            downloads.incrementAndGet();
+            final String host = host(url);
+            starts.computeIfAbsent(host, h -> new ConcurrentLinkedQueue<>()).add(System.nanoTime());
+            final var hostCount = perHost.computeIfAbsent(host, h -> new AtomicInteger());
+            maxPerHost.computeIfAbsent(host, h -> new AtomicInteger())
+                    .accumulateAndGet(hostCount.incrementAndGet(), Math::max);
+            maxTotal.accumulateAndGet(total.incrementAndGet(), Math::max);
+            try {
+                sleep(millis);
+                final int page = page(url);
+                if (page % 10 == 9) {
+                    throw new FileNotFoundException(MISSING + " " + url);
+                }
+                final Document document = () -> {
+                    extractions.incrementAndGet();
+                    return links(page);
+                };
+                return HashedDocument.of(url.getBytes(StandardCharsets.UTF_8), document);
+            } finally {
+                hostCount.decrementAndGet();
+                total.decrementAndGet();
+            }
+        }
+
+        private Result expected(final int depth, final Set<String> excludes) {
+            final List<String> downloaded = new ArrayList<>();
+            final Map<String, IOException> errors = new HashMap<>();
+            final Set<String> visited = new HashSet<>();
+            List<Integer> layer = List.of(0);
+            visited.add(url(0));
+            for (int d = depth; d > 0 && !layer.isEmpty(); d--) {
+                final List<Integer> next = new ArrayList<>();
+                for (final int page : layer) {
+                    if (excludes.stream().anyMatch(url(page)::contains)) {
+                        continue;
+                    }
+                    if (page % 10 == 9) {
+                        errors.put(url(page), new FileNotFoundException(MISSING + " " + url(page)));
+                        continue;
+                    }
+                    downloaded.add(url(page));
+                    for (final String link : links(page)) {
+                        if (visited.add(link)) {
+                            next.add(page(link));
+                        }
+                    }
+                }
+                layer = next;
+            }
+            return new Result(downloaded, errors);
+        }
+    }
+}
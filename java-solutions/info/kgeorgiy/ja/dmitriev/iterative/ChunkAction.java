@@ -0,0 +1,66 @@
+package info.kgeorgiy.ja.dmitriev.iterative;
+
+import java.io.Serial;
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Applies a function to chunks of indices in a {@link java.util.concurrent.ForkJoinPool}.
+ * Range of chunks is split in halves, so idle workers steal the rest of slow ranges.
+ *
+ * @param <R> the type of results for chunks
+ * @author Dmitriev Vladislav (bitree2004@yandex.ru)
+ * @since 21
+ */
+/*package-private*/ class ChunkAction<R> extends RecursiveAction {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final int size;
+    private final int chunk;
+    // actions run inside of one call and are never serialized
+    private final transient RangeFunction<R> mapper;
+    private final transient List<R> results;
+    private final int from;
+    private final int to;
+
+    /**
+     * Creates an action, that computes {@code results} for chunks in {@code [from, to)}.
+     *
+     * @param size    the number of indices to be split
+     * @param chunk   the number of indices in one chunk
+     * @param mapper  the function for one chunk
+     * @param results the list, where i-th element is result for i-th chunk
+     * @param from    index of first chunk
+     * @param to      index after last chunk
+     */
+    /*package-private*/ ChunkAction(
+            final int size,
+            final int chunk,
+            final RangeFunction<R> mapper,
+            final List<R> results,
+            final int from,
+            final int to
+    ) {
+        this.size = size;
+        this.chunk = chunk;
+        this.mapper = mapper;
+        this.results = results;
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+        if (to - from == 1) {
+            final int start = from * chunk;
+            results.set(from, mapper.apply(start, Math.min(size, start + chunk)));
+        } else {
+            final int mid = (from + to) >>> 1;
+            invokeAll(
+                    new ChunkAction<>(size, chunk, mapper, results, from, mid),
+                    new ChunkAction<>(size, chunk, mapper, results, mid, to)
+            );
+        }
+    }
+}
@@ -4,8 +4,15 @@ import info.kgeorgiy.java.advanced.iterative.AdvancedIP;
 import info.kgeorgiy.java.advanced.mapper.ParallelMapper;
 
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BinaryOperator;
 import java.util.function.Function;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -19,13 +26,29 @@ import java.util.stream.Stream;
  */
 @SuppressWarnings("unused")
 public class IterativeParallelism implements AdvancedIP {
+    // chunks per thread in fork-join mode, the more chunks the better skewed work is balanced
+    private static final int FORK_JOIN_CHUNKS = 16;
     private final ParallelMapper instanceOfParallelMapper;
+    private final ForkJoinPool forkJoinPool;
+    private final ThreadFactory threadFactory;
 
     /**
      * To create an object that will use its generated threads.
      */
     public IterativeParallelism() {
+        this(Thread::new);
+    }
+
+    /**
+     * To create an object that will use threads created by {@code threadFactory} on every call.
+     * For example, {@code Thread.ofVirtual().factory()} avoids costs of platform threads.
+     *
+     * @param threadFactory which will be used to create threads.
+     */
+    public IterativeParallelism(final ThreadFactory threadFactory) {
         this.instanceOfParallelMapper = null;
+        this.forkJoinPool = null;
+        this.threadFactory = Objects.requireNonNull(threadFactory);
     }
 
     /**
@@ -35,6 +58,21 @@ public class IterativeParallelism implements AdvancedIP {
      */
     public IterativeParallelism(final ParallelMapper parallelMapper) {
         this.instanceOfParallelMapper = parallelMapper;
+        this.forkJoinPool = null;
+        this.threadFactory = null;
+    }
+
+    /**
+     * To create an object that will use {@code forkJoinPool}.
+     * Values are split into {@code threads * 16} chunks, which are stolen by idle workers,
+     * so operations with skewed cost of elements are balanced.
+     *
+     * @param forkJoinPool which will be used for calculations.
+     */
+    public IterativeParallelism(final ForkJoinPool forkJoinPool) {
+        this.instanceOfParallelMapper = null;
+        this.forkJoinPool = Objects.requireNonNull(forkJoinPool);
+        this.threadFactory = null;
     }
 
     @Override
@@ -70,7 +108,7 @@ public class IterativeParallelism implements AdvancedIP {
         }
     }
 
-    private static <T> void checkArguments(final int threads, final List<? extends T> values) {
+    private static void checkArguments(final int threads, final Object values) {
         Objects.requireNonNull(values);
         if (threads < 1) {
             throw new IllegalArgumentException("Error: count of threads must be positive!");
@@ -109,10 +147,10 @@ public class IterativeParallelism implements AdvancedIP {
             final Predicate<? super T> predicate,
             final int step
     ) throws InterruptedException {
-        return mapReduce(threads, values, predicate::test, true,
-                         (a, b) -> a & b, step);
+        return !any(threads, values, predicate.negate(), step);
     }
 
+    // all threads stop as soon as one of them finds such value
     @Override
     public <T> boolean any(
             final int threads,
@@ -120,7 +158,97 @@ public class IterativeParallelism implements AdvancedIP {
             final Predicate<? super T> predicate,
             final int step
     ) throws InterruptedException {
-        return !all(threads, values, predicate.negate(), step);
+        final var found = new AtomicBoolean(false);
+        return run(
+                threads,
+                new KthList<>(values, step),
+                stream -> stream.takeWhile(x -> !found.get())
+                        .anyMatch(x -> predicate.test(x) && cancel(found)),
+                stream -> stream.anyMatch(Boolean::booleanValue)
+        );
+    }
+
+    /**
+     * Returns some value, that satisfies predicate.
+     * All threads stop as soon as one of them finds such value.
+     *
+     * @param threads   number of concurrent threads.
+     * @param values    values to test.
+     * @param predicate test predicate.
+     * @param step      step size.
+     * @param <T>       value type.
+     * @return any value, that satisfies predicate, or empty {@link Optional}, if there is no such value.
+     * @throws InterruptedException if executing thread was interrupted.
+     * @throws NullPointerException if the found value is {@code null}.
+     */
+    public <T> Optional<T> findAny(
+            final int threads,
+            final List<? extends T> values,
+            final Predicate<? super T> predicate,
+            final int step
+    ) throws InterruptedException {
+        final var found = new AtomicBoolean(false);
+        return run(
+                threads,
+                new KthList<T>(values, step),
+                stream -> stream.takeWhile(x -> !found.get())
+                        .filter(x -> predicate.test(x) && cancel(found))
+                        .findFirst(),
+                stream -> stream.flatMap(Optional::stream).findFirst()
+        );
+    }
+
+    /**
+     * Returns first value, that satisfies predicate.
+     * Every thread stops as soon as a value is found before its current position.
+     *
+     * @param threads   number of concurrent threads.
+     * @param values    values to test.
+     * @param predicate test predicate.
+     * @param step      step size.
+     * @param <T>       value type.
+     * @return first value, that satisfies predicate, or empty {@link Optional}, if there is no such value.
+     * @throws InterruptedException if executing thread was interrupted.
+     * @throws NullPointerException if the found value is {@code null}.
+     */
+    public <T> Optional<T> findFirst(
+            final int threads,
+            final List<? extends T> values,
+            final Predicate<? super T> predicate,
+            final int step
+    ) throws InterruptedException {
+        final var list = new KthList<T>(values, step);
+        final var first = new AtomicInteger(Integer.MAX_VALUE);
+        final int index = run(
+                threads,
+                indices(list.size()),
+                stream -> stream.takeWhile(i -> i < first.get())
+                        .filter(i -> predicate.test(list.get(i)))
+                        .findFirst()
+                        .map(i -> first.accumulateAndGet(i, Math::min))
+                        .orElse(Integer.MAX_VALUE),
+                stream -> stream.min(Integer::compare).orElseThrow()
+        );
+        return index == Integer.MAX_VALUE ? Optional.empty() : Optional.of(list.get(index));
+    }
+
+    private static boolean cancel(final AtomicBoolean cancelled) {
+        cancelled.set(true);
+        return true;
+    }
+
+    private static List<Integer> indices(final int size) {
+        return new AbstractList<>() {
+            @Override
+            public Integer get(final int index) {
+                return index;
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
     }
 
     @Override
@@ -133,34 +261,62 @@ public class IterativeParallelism implements AdvancedIP {
                 Integer::sum, step);
     }
 
-    private static <T, R> Stream<R> simpleRun(
+    private <R> List<R> simpleRun(
             final int threads,
-            final List<Stream<T>> tasks,
-            final Function<Stream<T>, R> mapperForThread,
-            final ArrayList<R> results
+            final int size,
+            final RangeFunction<R> mapperForThread
     ) throws InterruptedException {
+        final var results = new ArrayList<R>(Collections.nCopies(threads, null));
         final var listThreads = new ArrayList<Thread>(threads);
         for (int i = 0; i < threads; i++) {
             final var index = i;
             listThreads.add(
-                    new Thread(
-                            () -> results.set(index, mapperForThread.apply(tasks.get(index)))
-                    )
+                    this.threadFactory.newThread(() -> results.set(index, mapperForThread.apply(
+                            bound(index, threads, size),
+                            bound(index + 1, threads, size)
+                    )))
             );
             listThreads.get(i).start();
         }
         joinThreads(listThreads);
-        return results.stream();
+        return results;
     }
 
-    private <T, R> Stream<R> mapperRun(
+    private <R> List<R> mapperRun(
             final int threads,
-            final List<Stream<T>> tasks,
-            final Function<Stream<T>, R> mapperForThread,
-            final ArrayList<R> results
+            final int size,
+            final RangeFunction<R> mapperForThread
     ) throws InterruptedException {
         assert this.instanceOfParallelMapper != null;
-        return this.instanceOfParallelMapper.map(mapperForThread, tasks).stream();
+        return this.instanceOfParallelMapper.map(
+                index -> mapperForThread.apply(bound(index, threads, size), bound(index + 1, threads, size)),
+                indices(threads)
+        );
+    }
+
+    private <R> List<R> forkJoinRun(
+            final int threads,
+            final int size,
+            final RangeFunction<R> mapperForThread
+    ) throws InterruptedException {
+        assert this.forkJoinPool != null;
+        final var chunk = Math.max(1, size / (threads * FORK_JOIN_CHUNKS));
+        final var chunks = Math.max(1, (size + chunk - 1) / chunk);
+        final var results = new ArrayList<R>(Collections.nCopies(chunks, null));
+        try {
+            this.forkJoinPool.submit(
+                    new ChunkAction<>(size, chunk, mapperForThread, results, 0, chunks)
+            ).get();
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+        return results;
     }
 
     private <T, R> List<R> toList(
@@ -182,41 +338,59 @@ public class IterativeParallelism implements AdvancedIP {
             final BinaryOperator<R> binaryFunctor,
             final int step
     ) throws InterruptedException {
-        return run(threads, new KthList<>(values, step),
-                stream -> stream.map(lift).reduce(identity, binaryFunctor),
-                stream -> stream.reduce(identity, binaryFunctor));
-    }
-
-    private static <T> List<Stream<T>> splitList(final int threads, final List<T> values) {
-        final var bucket = values.size() / threads;
-        var rest = values.size() % threads;
-        final var res = new ArrayList<Stream<T>>(threads);
-        var start = 0;
-        for (int i = 0; i < threads; ++i) {
-            final var next = start + bucket + (--rest >= 0 ? 1 : 0);
-            res.add(values.subList(start, next).stream());
-            start = next;
+        if (!(values instanceof RandomAccess)) {
+            return run(threads, new KthList<>(values, step),
+                    stream -> stream.map(lift).reduce(identity, binaryFunctor),
+                    stream -> stream.reduce(identity, binaryFunctor));
+        }
+        checkArguments(threads, values);
+        final List<R> results = runRanges(threads, stridedSize(values.size(), step), (from, to) -> {
+            R res = identity;
+            for (int i = from * step; i < Math.min(values.size(), to * step); i += step) {
+                res = binaryFunctor.apply(res, lift.apply(values.get(i)));
+            }
+            return res;
+        });
+        R res = identity;
+        for (final R result : results) {
+            res = binaryFunctor.apply(res, result);
         }
         return res;
     }
 
-    private <T, R> R run(
+    // start of index-th of threads equal parts of [0, size)
+    private static int bound(final int index, final int threads, final int size) {
+        return index * (size / threads) + Math.min(index, size % threads);
+    }
+
+    // splits [0, size) into ranges and returns results for them in order
+    private <R> List<R> runRanges(
             int threads,
+            final int size,
+            final RangeFunction<R> mapperForThread
+    ) throws InterruptedException {
+        threads = Math.max(1, Math.min(threads, size));
+        if (this.forkJoinPool != null) {
+            return forkJoinRun(threads, size, mapperForThread);
+        } else if (this.instanceOfParallelMapper == null) {
+            return simpleRun(threads, size, mapperForThread);
+        } else {
+            return mapperRun(threads, size, mapperForThread);
+        }
+    }
+
+    private <T, R> R run(
+            final int threads,
             final List<T> values,
             final Function<Stream<T>, R> mapperForThread,
             final Function<Stream<R>, R> mapperForResult
     ) throws InterruptedException {
         checkArguments(threads, values);
-        threads = Math.max(1, Math.min(threads, values.size()));
-        final var tasks = splitList(threads, values);
-        final var results = new ArrayList<R>(Collections.nCopies(threads, null));
-        final Stream<R> resultsFromThreads;
-        if (this.instanceOfParallelMapper == null) {
-            resultsFromThreads = simpleRun(threads, tasks, mapperForThread, results);
-        } else {
-            resultsFromThreads = mapperRun(threads, tasks, mapperForThread, results);
-        }
-        return mapperForResult.apply(resultsFromThreads);
+        return mapperForResult.apply(runRanges(
+                threads,
+                values.size(),
+                (from, to) -> mapperForThread.apply(values.subList(from, to).stream())
+        ).stream());
     }
 
     @Override
@@ -225,14 +399,54 @@ public class IterativeParallelism implements AdvancedIP {
             final List<?> values,
             final int step
     ) throws InterruptedException {
-        return mapReduce(
-                threads,
-                values,
-                Object::toString,
-                "",
-                String::concat,
-                step
-        );
+        // the result is sized and copied once
+        return String.join("", joinParts(threads, values, step));
+    }
+
+    /**
+     * Joins values to a string without the final copy.
+     * Parts of threads are kept as they are and are concatenated only by {@link CharSequence#toString()}.
+     *
+     * @param threads number of concurrent threads.
+     * @param values  values to join.
+     * @param step    step size.
+     * @return joined values.
+     * @throws InterruptedException if executing thread was interrupted.
+     */
+    public CharSequence joinSequence(
+            final int threads,
+            final List<?> values,
+            final int step
+    ) throws InterruptedException {
+        return new Rope(joinParts(threads, values, step));
+    }
+
+    // string representations of parts of values, every one is built by one StringBuilder
+    private List<String> joinParts(
+            final int threads,
+            final List<?> values,
+            final int step
+    ) throws InterruptedException {
+        checkArguments(threads, values);
+        if (!(values instanceof RandomAccess)) {
+            final var list = new KthList<>(values, step);
+            return runRanges(threads, list.size(), (from, to) -> list.subList(from, to).stream()
+                    .map(Object::toString)
+                    .collect(Collectors.joining()));
+        }
+        return runRanges(threads, stridedSize(values.size(), step), (from, to) -> {
+            final var strings = new String[to - from];
+            int length = 0;
+            for (int i = 0, j = from * step; i < strings.length; i++, j += step) {
+                strings[i] = values.get(j).toString();
+                length = Math.addExact(length, strings[i].length());
+            }
+            final var sb = new StringBuilder(length);
+            for (final String string : strings) {
+                sb.append(string);
+            }
+            return sb.toString();
+        });
     }
 
     @Override
@@ -242,11 +456,66 @@ public class IterativeParallelism implements AdvancedIP {
             final Predicate<? super T> predicate,
             final int step
     ) throws InterruptedException {
-        return toList(
-                threads,
-                new KthList<>(values, step),
-                x -> x.filter(predicate)
-        );
+        if (!(values instanceof RandomAccess)) {
+            return toList(
+                    threads,
+                    new KthList<>(values, step),
+                    x -> x.filter(predicate)
+            );
+        }
+        checkArguments(threads, values);
+        final var res = new Object[stridedSize(values.size(), step)];
+        final var ranges = runRanges(threads, res.length, (from, to) -> {
+            int end = from;
+            for (int i = from * step; i < Math.min(values.size(), to * step); i += step) {
+                final T value = values.get(i);
+                if (predicate.test(value)) {
+                    res[end++] = value;
+                }
+            }
+            return new int[]{from, end};
+        });
+        return asList(Arrays.copyOf(res, compact(res, ranges)));
+    }
+
+    /**
+     * Filters values, that satisfy predicate, without boxing.
+     *
+     * @param threads   number of concurrent threads.
+     * @param values    values to filter.
+     * @param predicate filter predicate.
+     * @param step      step size.
+     * @return array of values satisfying given predicate. Order of values is preserved.
+     * @throws InterruptedException if executing thread was interrupted.
+     */
+    public int[] filter(
+            final int threads,
+            final int[] values,
+            final IntPredicate predicate,
+            final int step
+    ) throws InterruptedException {
+        checkArguments(threads, values);
+        final var res = new int[stridedSize(values.length, step)];
+        final var ranges = runRanges(threads, res.length, (from, to) -> {
+            int end = from;
+            for (int i = from * step; i < Math.min(values.length, to * step); i += step) {
+                if (predicate.test(values[i])) {
+                    res[end++] = values[i];
+                }
+            }
+            return new int[]{from, end};
+        });
+        return Arrays.copyOf(res, compact(res, ranges));
+    }
+
+    // moves filtered parts [from, end) of ranges to the beginning of array, returns total size
+    private static int compact(final Object array, final List<int[]> ranges) {
+        int size = 0;
+        for (final int[] range : ranges) {
+            System.arraycopy(array, range[0], array, size, range[1] - range[0]);
+            size += range[1] - range[0];
+        }
+        return size;
     }
 
     @Override
@@ -256,6 +525,169 @@ public class IterativeParallelism implements AdvancedIP {
             final Function<? super T, ? extends U> f,
             final int step
     ) throws InterruptedException {
-        return toList(threads, new KthList<>(values, step), x -> x.map(f));
+        if (!(values instanceof RandomAccess)) {
+            return toList(threads, new KthList<>(values, step), x -> x.map(f));
+        }
+        checkArguments(threads, values);
+        final var res = new Object[stridedSize(values.size(), step)];
+        runRanges(threads, res.length, (from, to) -> {
+            for (int i = from, j = from * step; i < to; i++, j += step) {
+                res[i] = f.apply(values.get(j));
+            }
+            return null;
+        });
+        return asList(res);
+    }
+
+    /**
+     * Maps values without boxing.
+     *
+     * @param threads number of concurrent threads.
+     * @param values  values to map.
+     * @param f       mapper function.
+     * @param step    step size.
+     * @return array of mapped values.
+     * @throws InterruptedException if executing thread was interrupted.
+     */
+    public int[] map(
+            final int threads,
+            final int[] values,
+            final IntUnaryOperator f,
+            final int step
+    ) throws InterruptedException {
+        checkArguments(threads, values);
+        final var res = new int[stridedSize(values.length, step)];
+        runRanges(threads, res.length, (from, to) -> {
+            for (int i = from, j = from * step; i < to; i++, j += step) {
+                res[i] = f.applyAsInt(values[j]);
+            }
+            return null;
+        });
+        return res;
+    }
+
+    /**
+     * Returns inclusive prefix reductions of values:
+     * {@code i}-th element is {@code identity op v[0] op v[step] ... op v[i * step]}.
+     * Computed in two passes: every thread scans its part, then adds reduction of previous parts.
+     *
+     * @param threads  number of concurrent threads.
+     * @param values   values to scan.
+     * @param identity identity of {@code operator}.
+     * @param operator associative operator.
+     * @param step     step size.
+     * @param <T>      value type.
+     * @return list of prefix reductions.
+     * @throws InterruptedException if executing thread was interrupted.
+     */
+    public <T> List<T> scan(
+            final int threads,
+            final List<? extends T> values,
+            final T identity,
+            final BinaryOperator<T> operator,
+            final int step
+    ) throws InterruptedException {
+        checkArguments(threads, values);
+        final List<? extends T> list = values instanceof RandomAccess ? values : new ArrayList<>(values);
+        final var res = new Object[stridedSize(list.size(), step)];
+        final List<Segment<T>> segments = runRanges(threads, res.length, (from, to) -> {
+            T acc = identity;
+            for (int i = from, j = from * step; i < to; i++, j += step) {
+                acc = operator.apply(acc, list.get(j));
+                res[i] = acc;
+            }
+            return new Segment<>(from, to, acc);
+        });
+        final List<T> offsets = new ArrayList<>(segments.size());
+        T acc = identity;
+        for (final Segment<T> segment : segments) {
+            offsets.add(acc);
+            acc = operator.apply(acc, segment.value());
+        }
+        runRanges(threads, segments.size() - 1, (from, to) -> {
+            for (int k = from + 1; k <= to; k++) {
+                final Segment<T> segment = segments.get(k);
+                for (int i = segment.from(); i < segment.to(); i++) {
+                    res[i] = operator.apply(offsets.get(k), IterativeParallelism.<T>cast(res[i]));
+                }
+            }
+            return null;
+        });
+        return asList(res);
+    }
+
+    /**
+     * Sorts values: every thread sorts its part, then sorted parts are merged.
+     * The sort is stable.
+     *
+     * @param threads    number of concurrent threads.
+     * @param values     values to sort.
+     * @param comparator value comparator, {@code null} means natural ordering.
+     * @param <T>        value type.
+     * @return sorted list of values.
+     * @throws InterruptedException if executing thread was interrupted.
+     */
+    public <T> List<T> sort(
+            final int threads,
+            final List<? extends T> values,
+            final Comparator<? super T> comparator
+    ) throws InterruptedException {
+        checkArguments(threads, values);
+        final Object[] array = values.toArray();
+        @SuppressWarnings("unchecked") final Comparator<Object> cmp = comparator == null
+                ? (a, b) -> ((Comparable<Object>) a).compareTo(b)
+                : (a, b) -> comparator.compare(cast(a), cast(b));
+        final var ranges = runRanges(threads, array.length, (from, to) -> {
+            Arrays.sort(array, from, to, cmp);
+            return new int[]{from, to};
+        });
+        return asList(merge(array, ranges, cmp));
+    }
+
+    // k-way merge of sorted ranges, equal elements are taken from earlier ranges first
+    private static Object[] merge(final Object[] array, final List<int[]> ranges, final Comparator<Object> cmp) {
+        if (ranges.size() <= 1) {
+            return array;
+        }
+        final Object[] res = new Object[array.length];
+        // heap of range indices, ranges[k][0] is the next element of k-th range
+        final PriorityQueue<Integer> heap = new PriorityQueue<>(ranges.size(), (a, b) -> {
+            final int c = cmp.compare(array[ranges.get(a)[0]], array[ranges.get(b)[0]]);
+            return c != 0 ? c : Integer.compare(a, b);
+        });
+        for (int k = 0; k < ranges.size(); k++) {
+            if (ranges.get(k)[0] < ranges.get(k)[1]) {
+                heap.add(k);
+            }
+        }
+        for (int i = 0; !heap.isEmpty(); i++) {
+            final int k = heap.poll();
+            final int[] range = ranges.get(k);
+            res[i] = array[range[0]++];
+            if (range[0] < range[1]) {
+                heap.add(k);
+            }
+        }
+        return res;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T cast(final Object value) {
+        return (T) value;
+    }
+
+    // scanned part [from, to) of values and its reduction
+    private record Segment<T>(int from, int to, T value) {
+    }
+
+    // number of elements with indices divisible by step
+    private static int stridedSize(final int size, final int step) {
+        return (size + step - 1) / step;
+    }
+
+    // mutable list, like lists collected on the path for sequential access
+    @SuppressWarnings("unchecked")
+    private static <T> List<T> asList(final Object[] array) {
+        return new ArrayList<>((List<T>) Arrays.asList(array));
     }
 }
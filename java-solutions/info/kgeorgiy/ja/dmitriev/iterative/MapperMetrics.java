@@ -0,0 +1,122 @@
+package info.kgeorgiy.ja.dmitriev.iterative;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Counters of {@link ParallelMapperImpl}.
+ * Updates don't allocate and don't contend: counters are {@link LongAdder}s,
+ * busy time of every worker is kept in its own slot.
+ *
+ * @author Dmitriev Vladislav (bitree2004@yandex.ru)
+ * @since 21
+ */
+/*package-private*/ class MapperMetrics implements ParallelMapperMXBean {
+    private final MapperQueue<?> queue;
+    private final long created = System.nanoTime();
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder started = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+    private final LongAdder exceptions = new LongAdder();
+    private final LongAdder[] latency = Stream.generate(LongAdder::new)
+            .limit(Long.SIZE)
+            .toArray(LongAdder[]::new);
+    private final AtomicLongArray busy;
+
+    /*package-private*/ MapperMetrics(final MapperQueue<?> queue, final int workers) {
+        this.queue = queue;
+        this.busy = new AtomicLongArray(workers);
+    }
+
+    /*package-private*/ void submitted(final int tasks) {
+        submitted.add(tasks);
+    }
+
+    /*package-private*/ void cancelled(final int tasks) {
+        cancelled.add(tasks);
+    }
+
+    /*package-private*/ void exception() {
+        exceptions.increment();
+    }
+
+    /**
+     * Runs task and accounts its execution time.
+     *
+     * @param task   the task to run
+     * @param worker index of worker thread or {@code -1} for other threads
+     */
+    /*package-private*/ void run(final Runnable task, final int worker) {
+        started.increment();
+        final long start = System.nanoTime();
+        try {
+            task.run();
+        } finally {
+            final long time = System.nanoTime() - start;
+            latency[Math.min(Long.SIZE - Long.numberOfLeadingZeros(time), Long.SIZE - 1)].increment();
+            if (worker >= 0) {
+                busy.addAndGet(worker, time);
+            }
+            completed.increment();
+        }
+    }
+
+    /*package-private*/ ParallelMapperStatistics statistics() {
+        return new ParallelMapperStatistics(
+                getQueueLength(),
+                getTasksSubmitted(),
+                getTasksCompleted(),
+                getTasksCancelled(),
+                getExceptions(),
+                getLatencyHistogram(),
+                getUtilization(),
+                queue.waitStatistics()
+        );
+    }
+
+    @Override
+    public long getQueueLength() {
+        return Math.max(0, submitted.sum() - started.sum() - cancelled.sum());
+    }
+
+    @Override
+    public long getTasksSubmitted() {
+        return submitted.sum();
+    }
+
+    @Override
+    public long getTasksCompleted() {
+        return completed.sum();
+    }
+
+    @Override
+    public long getTasksCancelled() {
+        return cancelled.sum();
+    }
+
+    @Override
+    public long getExceptions() {
+        return exceptions.sum();
+    }
+
+    @Override
+    public long[] getLatencyHistogram() {
+        return Stream.of(latency).mapToLong(LongAdder::sum).toArray();
+    }
+
+    @Override
+    public double[] getUtilization() {
+        final double elapsed = Math.max(1, System.nanoTime() - created);
+        return IntStream.range(0, busy.length())
+                .mapToDouble(i -> busy.get(i) / elapsed)
+                .toArray();
+    }
+
+    @Override
+    public double getAverageQueueWaitNanos() {
+        return queue.waitStatistics().getAverage();
+    }
+}
@@ -1,26 +1,192 @@
 package info.kgeorgiy.ja.dmitriev.iterative;
 
-import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Queue;
+import java.util.Iterator;
+import java.util.List;
+import java.util.LongSummaryStatistics;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Consumer;
+import java.util.stream.Stream;
 
+/**
+ * Lock-free queue of tasks with a ring of batches per worker, that is served in weighted round-robin order.
+ * A batch is spread evenly across workers, every worker keeps its share of the batch in a deque.
+ * A worker takes {@code weight} tasks from the head of the share at the head of its ring and moves the share
+ * to the tail, so a small batch doesn't wait behind the whole of a large one.
+ * A worker with an empty ring steals from the tail of shares of others, so workers don't share a head.
+ * Permits of the semaphore count queued tasks, so a worker sleeps only when there are none.
+ *
+ * @param <E> the type of tasks
+ * @author Dmitriev Vladislav (bitree2004@yandex.ru)
+ * @since 21
+ */
 /*package-private*/ class MapperQueue<E> {
-    private final Queue<E> data = new ArrayDeque<>();
+    private final List<ConcurrentLinkedQueue<Share<E>>> rings;
+    private final Semaphore available = new Semaphore(0);
+    // permits of removed tasks, that were already acquired by workers
+    private final AtomicInteger removed = new AtomicInteger(0);
+    // time from submission of a batch to start of its first task
+    private final LongAdder waitCount = new LongAdder();
+    private final LongAdder waitSum = new LongAdder();
+    private final AtomicLong waitMin = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong waitMax = new AtomicLong(Long.MIN_VALUE);
 
-    /*package-private*/ synchronized void forEach(final Consumer<? super E> consumer) {
-        data.forEach(consumer);
+    private static final class Batch<E> {
+        private final Collection<?> source;
+        private final int weight;
+        private final long submitted = System.nanoTime();
+        private final AtomicBoolean started = new AtomicBoolean(false);
+        private final List<Share<E>> shares = new ArrayList<>();
+
+        private Batch(final Collection<?> source, final int weight) {
+            this.source = source;
+            this.weight = weight;
+        }
+    }
+
+    // tasks of a batch in the ring of one worker, credit is changed only by the worker
+    private static final class Share<E> {
+        private final Batch<E> batch;
+        private final ConcurrentLinkedDeque<E> tasks = new ConcurrentLinkedDeque<>();
+        private int credit;
+
+        private Share(final Batch<E> batch) {
+            this.batch = batch;
+            this.credit = batch.weight;
+        }
+    }
+
+    /*package-private*/ MapperQueue(final int workers) {
+        rings = Stream.generate(ConcurrentLinkedQueue<Share<E>>::new)
+                .limit(Math.max(1, workers))
+                .toList();
     }
 
-    /*package-private*/ synchronized E poll() throws InterruptedException {
-        while (data.isEmpty()) {
-            wait();
+    /*package-private*/ void forEach(final Consumer<? super E> consumer) {
+        rings.forEach(ring -> ring.forEach(share -> share.tasks.forEach(consumer)));
+    }
+
+    /*package-private*/ E poll(final int worker) throws InterruptedException {
+        while (true) {
+            available.acquire();
+            // a task for the acquired permit is already in one of the shares or was removed
+            while (true) {
+                final E task = next(worker);
+                if (task != null) {
+                    return task;
+                }
+                if (removed.getAndUpdate(x -> Math.max(0, x - 1)) > 0) {
+                    break;
+                }
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    private E next(final int worker) {
+        final var ring = rings.get(worker);
+        Share<E> share;
+        while ((share = ring.peek()) != null) {
+            final E task = share.tasks.pollFirst();
+            if (task == null) {
+                ring.remove(share);
+                continue;
+            }
+            if (--share.credit <= 0) {
+                share.credit = share.batch.weight;
+                if (ring.remove(share)) {
+                    ring.add(share);
+                }
+            }
+            return started(share, task);
+        }
+        for (int i = 1; i < rings.size(); i++) {
+            for (final var stolen : rings.get((worker + i) % rings.size())) {
+                final E task = stolen.tasks.pollLast();
+                if (task != null) {
+                    return started(stolen, task);
+                }
+            }
         }
-        return data.poll();
+        return null;
     }
 
-    /*package-private*/ synchronized void addAll(final Collection<? extends E> collection) {
-        data.addAll(collection);
-        data.forEach(x -> this.notify());
+    private E started(final Share<E> share, final E task) {
+        if (!share.batch.started.getAndSet(true)) {
+            recordWait(System.nanoTime() - share.batch.submitted);
+        }
+        return task;
+    }
+
+    private void recordWait(final long nanos) {
+        waitMin.accumulateAndGet(nanos, Math::min);
+        waitMax.accumulateAndGet(nanos, Math::max);
+        waitSum.add(nanos);
+        // the last, so min and max are set for every counted batch
+        waitCount.increment();
+    }
+
+    /*package-private*/ LongSummaryStatistics waitStatistics() {
+        final long count = waitCount.sum();
+        if (count == 0) {
+            return new LongSummaryStatistics();
+        }
+        return new LongSummaryStatistics(count, waitMin.get(), waitMax.get(), waitSum.sum());
+    }
+
+    /*package-private*/ void addAll(final Collection<? extends E> collection, final int weight) {
+        if (collection.isEmpty()) {
+            return;
+        }
+        final var batch = new Batch<E>(collection, weight);
+        final Iterator<? extends E> iterator = collection.iterator();
+        final int size = collection.size();
+        for (int i = 0; i < rings.size(); i++) {
+            final var share = new Share<E>(batch);
+            final int end = (int) ((long) size * (i + 1) / rings.size());
+            for (int j = (int) ((long) size * i / rings.size()); j < end; j++) {
+                share.tasks.addLast(iterator.next());
+            }
+            batch.shares.add(share);
+        }
+        // shares are published after the list is complete
+        for (int i = 0; i < rings.size(); i++) {
+            if (!batch.shares.get(i).tasks.isEmpty()) {
+                rings.get(i).add(batch.shares.get(i));
+            }
+        }
+        available.release(size);
+    }
+
+    // removes not started tasks of the batch, that was added with the same collection
+    /*package-private*/ int removeAll(final Collection<? extends E> collection) {
+        for (final var ring : rings) {
+            for (final var share : ring) {
+                if (share.batch.source == collection) {
+                    return removeAll(share.batch);
+                }
+            }
+        }
+        return 0;
+    }
+
+    private int removeAll(final Batch<E> batch) {
+        int count = 0;
+        for (final var share : batch.shares) {
+            while (share.tasks.pollFirst() != null) {
+                count++;
+                if (!available.tryAcquire()) {
+                    removed.incrementAndGet();
+                }
+            }
+        }
+        return count;
     }
 }
@@ -2,7 +2,17 @@ package info.kgeorgiy.ja.dmitriev.iterative;
 
 import info.kgeorgiy.java.advanced.mapper.ParallelMapper;
 
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
 import java.util.List;
+import java.util.LongSummaryStatistics;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.IntStream;
 
@@ -15,10 +25,21 @@ import java.util.stream.IntStream;
  */
 @SuppressWarnings("unused")
 public class ParallelMapperImpl implements ParallelMapper {
+    /**
+     * Priority of calls, that don't specify it.
+     */
+    public static final int DEFAULT_PRIORITY = 1;
+    // chunks per thread, so workers stay balanced when elements have different cost
+    private static final int CHUNKS_PER_THREAD = 4;
+    // so concurrent calls take turns often enough
+    private static final int MAX_CHUNK = 1 << 12;
 
     /*package-private*/ final List<Thread> listOfThreads;
-    /*package-private*/ final MapperQueue<Task> queue = new MapperQueue<>();
-    /*package-private*/ boolean active = true;
+    /*package-private*/ final MapperQueue<Task> queue;
+    /*package-private*/ volatile boolean active = true;
+    /*package-private*/ final MapperMetrics metrics;
+    private final ExecutorService virtualThreads;
+    private ObjectName mbeanName;
 
     /**
      * Creates an {@link ParallelMapper} instance
@@ -30,19 +51,75 @@ public class ParallelMapperImpl implements ParallelMapper {
         if (threads < 0) {
             throw new IllegalArgumentException("Threads should be positive number!");
         }
-        final Runnable runnable = () ->
-        {
-            try {
-                while (!Thread.interrupted()) {
-                    queue.poll().runnable().run();
-                }
-            } catch (final InterruptedException ignored) {
-            }
-        };
+        queue = new MapperQueue<>(threads);
+        metrics = new MapperMetrics(queue, threads);
         listOfThreads = IntStream.range(0, threads)
-                .mapToObj(index -> new Thread(runnable))
+                .mapToObj(index -> new Thread(() -> {
+                    try {
+                        while (!Thread.interrupted()) {
+                            metrics.run(queue.poll(index).runnable(), index);
+                        }
+                    } catch (final InterruptedException ignored) {
+                    }
+                }))
                 .toList();
         listOfThreads.forEach(Thread::start);
+        virtualThreads = null;
+    }
+
+    private ParallelMapperImpl(final ExecutorService virtualThreads) {
+        this.queue = new MapperQueue<>(0);
+        this.metrics = new MapperMetrics(queue, 0);
+        this.listOfThreads = List.of();
+        this.virtualThreads = virtualThreads;
+    }
+
+    /**
+     * Creates an {@link ParallelMapper} instance, that starts a new virtual thread for every element.
+     * It suits functions, that block on I/O, order of results and exceptions are the same.
+     *
+     * @return new {@link ParallelMapperImpl}
+     */
+    public static ParallelMapperImpl newVirtualThreadPerTask() {
+        return new ParallelMapperImpl(Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    /*package-private*/ int chunkSize(final int size) {
+        if (virtualThreads != null) {
+            return 1;
+        }
+        return Math.clamp(size / (Math.max(1, listOfThreads.size()) * CHUNKS_PER_THREAD), 1, MAX_CHUNK);
+    }
+
+    /*package-private*/ void submit(final List<Task> tasks, final int priority) {
+        if (!active) {
+            tasks.forEach(task -> task.tasks().close());
+            return;
+        }
+        if (virtualThreads == null) {
+            metrics.submitted(tasks.size());
+            queue.addAll(tasks, priority);
+            // close() sets active before it closes queued tasks, so either it sees these tasks or they are closed here
+            if (!active) {
+                tasks.forEach(task -> task.tasks().close());
+            }
+            return;
+        }
+        try {
+            for (final Task task : tasks) {
+                virtualThreads.execute(() -> metrics.run(task.runnable(), -1));
+                metrics.submitted(1);
+            }
+        } catch (final RejectedExecutionException ignored) {
+            tasks.forEach(task -> task.tasks().close());
+        }
+    }
+
+    /*package-private*/ void cancel(final List<Task> tasks) {
+        // tasks on virtual threads see cancellation themselves
+        if (virtualThreads == null) {
+            metrics.cancelled(queue.removeAll(tasks));
+        }
     }
 
     @Override
@@ -50,12 +127,174 @@ public class ParallelMapperImpl implements ParallelMapper {
             final Function<? super T, ? extends R> f,
             final List<? extends T> args
     ) throws InterruptedException {
-        return new Tasks<T, R>(this, f, args).get();
+        return map(f, args, DEFAULT_PRIORITY);
+    }
+
+    /**
+     * Maps function {@code f} over specified {@code args} with the given priority.
+     * Concurrent calls are served in round-robin order, a call with priority {@code p}
+     * gets {@code p} tasks per round, so large calls don't block small ones.
+     * Priority is ignored by {@link #newVirtualThreadPerTask()} instances.
+     *
+     * @param f        the function to apply
+     * @param args     the arguments
+     * @param priority positive weight of the call
+     * @param <T>      the type of arguments
+     * @param <R>      the type of results
+     * @return results in order of {@code args}
+     * @throws InterruptedException if calling thread was interrupted
+     */
+    public <T, R> List<R> map(
+            final Function<? super T, ? extends R> f,
+            final List<? extends T> args,
+            final int priority
+    ) throws InterruptedException {
+        return new Tasks<T, R>(this, f, args, null, checkPriority(priority)).get();
+    }
+
+    /**
+     * Returns statistics of time in nanoseconds, that calls waited in the queue
+     * before the first of their tasks started.
+     *
+     * @return snapshot of statistics
+     */
+    public LongSummaryStatistics queueWaitStatistics() {
+        return queue.waitStatistics();
+    }
+
+    /**
+     * Returns snapshot of metrics: queue length, counts of tasks and exceptions,
+     * histogram of task execution time and utilization of worker threads.
+     * Tasks are chunks of elements, see {@link #map(Function, List, int)}.
+     * Counters are read one by one, so the snapshot isn't atomic.
+     *
+     * @return current metrics
+     */
+    public ParallelMapperStatistics statistics() {
+        return metrics.statistics();
+    }
+
+    /**
+     * Registers metrics of this mapper in the platform MBean server as {@link ParallelMapperMXBean}.
+     * The bean is unregistered by {@link #close()}.
+     *
+     * @param name value of {@code name} key of the object name
+     * @return name of the registered bean
+     * @throws JMException if bean can't be registered
+     */
+    public synchronized ObjectName registerMBean(final String name) throws JMException {
+        if (mbeanName != null) {
+            throw new IllegalStateException("MBean is already registered as " + mbeanName);
+        }
+        final ObjectName objectName = new ObjectName(
+                ParallelMapperImpl.class.getPackageName()
+                        + ":type=" + ParallelMapperImpl.class.getSimpleName()
+                        + ",name=" + ObjectName.quote(name)
+        );
+        ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, objectName);
+        mbeanName = objectName;
+        return objectName;
+    }
+
+    private synchronized void unregisterMBean() {
+        if (mbeanName != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(mbeanName);
+            } catch (final JMException ignored) {
+            }
+            mbeanName = null;
+        }
+    }
+
+    private static int checkPriority(final int priority) {
+        if (priority <= 0) {
+            throw new IllegalArgumentException("Priority should be positive number!");
+        }
+        return priority;
+    }
+
+    /**
+     * Maps function {@code f} over specified {@code args} without blocking.
+     * Cancellation of the returned future removes not started tasks from the queue.
+     *
+     * @param f    the function to apply
+     * @param args the arguments
+     * @param <T>  the type of arguments
+     * @param <R>  the type of results
+     * @return future of results in order of {@code args},
+     * completed exceptionally if {@code f} throws for any element
+     */
+    public <T, R> CompletableFuture<List<R>> mapAsync(
+            final Function<? super T, ? extends R> f,
+            final List<? extends T> args
+    ) {
+        return mapAsync(f, args, DEFAULT_PRIORITY);
+    }
+
+    /**
+     * Maps function {@code f} over specified {@code args} with the given priority without blocking.
+     *
+     * @param f        the function to apply
+     * @param args     the arguments
+     * @param priority positive weight of the call
+     * @param <T>      the type of arguments
+     * @param <R>      the type of results
+     * @return future of results in order of {@code args}
+     * @see #mapAsync(Function, List)
+     * @see #map(Function, List, int)
+     */
+    public <T, R> CompletableFuture<List<R>> mapAsync(
+            final Function<? super T, ? extends R> f,
+            final List<? extends T> args,
+            final int priority
+    ) {
+        return new Tasks<T, R>(this, f, args, null, checkPriority(priority)).future();
+    }
+
+    /**
+     * Maps function {@code f} over specified {@code args} without blocking and
+     * passes results to {@code action} in order of {@code args}, as soon as all previous ones are ready.
+     * {@code action} is called by one thread at a time. Results aren't kept after delivery.
+     * Delivery stops at the first element, for which {@code f} or {@code action} throws.
+     * Cancellation of the returned future removes not started tasks from the queue.
+     *
+     * @param f      the function to apply
+     * @param args   the arguments
+     * @param action the consumer of results
+     * @param <T>    the type of arguments
+     * @param <R>    the type of results
+     * @return future completed after all results are delivered,
+     * completed exceptionally if {@code f} or {@code action} throws for any element
+     */
+    public <T, R> CompletableFuture<Void> mapOrdered(
+            final Function<? super T, ? extends R> f,
+            final List<? extends T> args,
+            final Consumer<? super R> action
+    ) {
+        final var tasks = new Tasks<T, R>(this, f, args, action, DEFAULT_PRIORITY).future();
+        final CompletableFuture<Void> res = tasks.thenApply(results -> null);
+        res.whenComplete((result, e) -> {
+            if (res.isCancelled()) {
+                tasks.cancel(false);
+            }
+        });
+        return res;
     }
 
     @Override
     public void close() {
         active = false;
+        unregisterMBean();
+        if (virtualThreads != null) {
+            virtualThreads.shutdownNow();
+            boolean terminated = false;
+            while (!terminated) {
+                try {
+                    terminated = virtualThreads.awaitTermination(1L, TimeUnit.DAYS);
+                } catch (final InterruptedException ignored) {
+                }
+            }
+        }
         listOfThreads.forEach(Thread::interrupt);
         queue.forEach(x -> x.tasks().close());
         for (int i = 0; i < listOfThreads.size(); ) {
@@ -0,0 +1,66 @@
+package info.kgeorgiy.ja.dmitriev.iterative;
+
+/**
+ * Management interface of {@link ParallelMapperImpl}.
+ *
+ * @author Dmitriev Vladislav (bitree2004@yandex.ru)
+ * @see ParallelMapperImpl#registerMBean(String)
+ * @since 21
+ */
+public interface ParallelMapperMXBean {
+    /**
+     * Returns the number of tasks waiting in the queue.
+     *
+     * @return queue length
+     */
+    long getQueueLength();
+
+    /**
+     * Returns the number of submitted tasks.
+     *
+     * @return submitted tasks
+     */
+    long getTasksSubmitted();
+
+    /**
+     * Returns the number of completed tasks.
+     *
+     * @return completed tasks
+     */
+    long getTasksCompleted();
+
+    /**
+     * Returns the number of tasks removed from the queue by cancellation.
+     *
+     * @return cancelled tasks
+     */
+    long getTasksCancelled();
+
+    /**
+     * Returns the number of exceptions thrown by mapped functions.
+     *
+     * @return exceptions
+     */
+    long getExceptions();
+
+    /**
+     * Returns histogram of task execution time.
+     *
+     * @return i-th element is the number of tasks, that took {@code [2^(i-1), 2^i)} nanoseconds
+     */
+    long[] getLatencyHistogram();
+
+    /**
+     * Returns the part of time, that every worker thread was busy since creation of the mapper.
+     *
+     * @return utilization of workers from {@code 0} to {@code 1}
+     */
+    double[] getUtilization();
+
+    /**
+     * Returns average time, that calls waited in the queue before the first of their tasks started.
+     *
+     * @return time in nanoseconds
+     */
+    double getAverageQueueWaitNanos();
+}
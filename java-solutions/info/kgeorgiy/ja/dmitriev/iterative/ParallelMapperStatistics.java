@@ -0,0 +1,29 @@
+package info.kgeorgiy.ja.dmitriev.iterative;
+
+import java.util.LongSummaryStatistics;
+
+/**
+ * Snapshot of {@link ParallelMapperImpl} metrics.
+ *
+ * @param queueLength      the number of tasks waiting in the queue
+ * @param tasksSubmitted   the number of submitted tasks
+ * @param tasksCompleted   the number of completed tasks
+ * @param tasksCancelled   the number of tasks removed from the queue by cancellation
+ * @param exceptions       the number of exceptions thrown by mapped functions
+ * @param latencyHistogram i-th element is the number of tasks, that took {@code [2^(i-1), 2^i)} nanoseconds
+ * @param utilization      the part of time, that every worker thread was busy
+ * @param queueWait        time in nanoseconds, that calls waited before the first of their tasks started
+ * @author Dmitriev Vladislav (bitree2004@yandex.ru)
+ * @since 21
+ */
+public record ParallelMapperStatistics(
+        long queueLength,
+        long tasksSubmitted,
+        long tasksCompleted,
+        long tasksCancelled,
+        long exceptions,
+        long[] latencyHistogram,
+        double[] utilization,
+        LongSummaryStatistics queueWait
+) {
+}
@@ -0,0 +1,20 @@
+package info.kgeorgiy.ja.dmitriev.iterative;
+
+/**
+ * Computes result for range of indices.
+ *
+ * @param <R> the type of result
+ * @author Dmitriev Vladislav (bitree2004@yandex.ru)
+ * @since 21
+ */
+@FunctionalInterface
+/*package-private*/ interface RangeFunction<R> {
+    /**
+     * Computes result for indices in {@code [from, to)}.
+     *
+     * @param from first index
+     * @param to   index after last
+     * @return result for the range
+     */
+    R apply(int from, int to);
+}
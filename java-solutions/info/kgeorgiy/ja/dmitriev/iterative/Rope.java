@@ -0,0 +1,77 @@
+package info.kgeorgiy.ja.dmitriev.iterative;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Is a concatenation of strings, that isn't copied until {@link #toString()}.
+ * Class implementing {@link CharSequence}.
+ *
+ * @author Dmitriev Vladislav (bitree2004@yandex.ru)
+ * @since 21
+ */
+/*package-private*/ class Rope implements CharSequence {
+    private final List<String> parts;
+    // starts[i] is the index of the first char of i-th part, starts[parts.size()] is the length
+    private final int[] starts;
+
+    /**
+     * Constructs a concatenation of {@code parts}.
+     *
+     * @param parts strings in order
+     */
+    /*package-private*/ Rope(final List<String> parts) {
+        this.parts = parts;
+        this.starts = new int[parts.size() + 1];
+        for (int i = 0; i < parts.size(); i++) {
+            starts[i + 1] = Math.addExact(starts[i], parts.get(i).length());
+        }
+    }
+
+    @Override
+    public int length() {
+        return starts[parts.size()];
+    }
+
+    @Override
+    public char charAt(final int index) {
+        if (index < 0 || index >= length()) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        final int part = part(index);
+        return parts.get(part).charAt(index - starts[part]);
+    }
+
+    @Override
+    public CharSequence subSequence(final int start, final int end) {
+        if (start < 0 || start > end || end > length()) {
+            throw new IndexOutOfBoundsException("[" + start + ", " + end + ") of " + length());
+        }
+        final StringBuilder sb = new StringBuilder(end - start);
+        for (int part = part(start), from = start; from < end; part++) {
+            final int to = Math.min(end, starts[part + 1]);
+            sb.append(parts.get(part), from - starts[part], to - starts[part]);
+            from = to;
+        }
+        return sb.toString();
+    }
+
+    // index of the last part, that starts at or before index
+    private int part(final int index) {
+        final int pos = Arrays.binarySearch(starts, 0, parts.size(), index);
+        if (pos < 0) {
+            return -pos - 2;
+        }
+        // skips empty parts
+        int part = pos;
+        while (part + 1 < parts.size() && starts[part + 1] == index) {
+            part++;
+        }
+        return part;
+    }
+
+    @Override
+    public String toString() {
+        return String.join("", parts);
+    }
+}
@@ -1,43 +1,81 @@
 package info.kgeorgiy.ja.dmitriev.iterative;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.IntStream;
 
 /*package-private*/ class Tasks<T, R> {
     private final ParallelMapperImpl parallelMapper;
-    private final List<R> data;
-    private int numberActive;
+    private final Object[] data;
+    private final AtomicInteger numberActive;
+    private final CompletableFuture<List<R>> future = new CompletableFuture<>();
+    private final List<Task> tasks;
     private RuntimeException runtimeException;
+    // for ordered delivery of results to consumer, one thread at a time delivers outside of the lock
+    private final Consumer<? super R> consumer;
+    private final int chunk;
+    private final AtomicIntegerArray finishedTo;
+    private final AtomicBoolean delivering = new AtomicBoolean(false);
+    private volatile int delivered;
+    private volatile boolean stopped;
+    private boolean deliveryDone;
 
     /*package-private*/ Tasks(
             final ParallelMapperImpl parallelMapper,
             final Function<? super T, ? extends R> functor,
-            final List<? extends T> args
+            final List<? extends T> args,
+            final Consumer<? super R> consumer,
+            final int priority
     ) {
         this.parallelMapper = parallelMapper;
-        numberActive = args.size();
-        data = new ArrayList<>(Collections.nCopies(numberActive, null));
+        this.consumer = consumer;
+        data = new Object[args.size()];
+        chunk = parallelMapper.chunkSize(data.length);
+        final int chunks = (data.length + chunk - 1) / chunk;
+        finishedTo = new AtomicIntegerArray(chunks);
+        for (int i = 0; i < chunks; i++) {
+            finishedTo.set(i, -1);
+        }
+        // delivery holds the future until results of all chunks are passed to consumer
+        numberActive = new AtomicInteger(consumer != null ? chunks + 1 : chunks);
         runtimeException = null;
-        parallelMapper.queue.addAll(IntStream.range(0, numberActive).mapToObj(
+        tasks = IntStream.range(0, chunks).mapToObj(
                 index -> new Task(
                         this,
                         () -> {
-                            try {
-                                set(index, functor.apply(args.get(index)));
-                            } catch (final RuntimeException e) {
-                                set(e);
+                            final int end = Math.min(data.length, (index + 1) * chunk);
+                            int failed = end;
+                            for (int i = index * chunk; i < end && !future.isCancelled(); i++) {
+                                try {
+                                    data[i] = functor.apply(args.get(i));
+                                } catch (final RuntimeException e) {
+                                    failed = Math.min(failed, i);
+                                    parallelMapper.metrics.exception();
+                                    set(e);
+                                }
+                            }
+                            if (consumer != null) {
+                                deliver(index, failed);
                             }
+                            decrement();
                         })
-        ).toList());
-    }
-
-    /*package-private*/
-    synchronized void set(final int index, final R element) {
-        data.set(index, element);
-        decrement();
+        ).toList();
+        if (chunks == 0) {
+            complete();
+        }
+        future.whenComplete((result, e) -> {
+            if (future.isCancelled()) {
+                parallelMapper.cancel(tasks);
+            }
+        });
+        parallelMapper.submit(tasks, priority);
     }
 
     /*package-private*/
@@ -47,35 +85,88 @@ import java.util.stream.IntStream;
         } else {
             runtimeException.addSuppressed(exception);
         }
-        decrement();
+    }
+
+    /*package-private*/ CompletableFuture<List<R>> future() {
+        return future;
     }
 
     /*package-private*/
-    synchronized List<R> get() throws InterruptedException {
-        while (numberActive != 0 && parallelMapper.active) {
-            wait();
-        }
-        if (runtimeException != null) {
-            throw runtimeException;
+    List<R> get() throws InterruptedException {
+        if (!parallelMapper.active) {
+            close();
         }
-        if (numberActive == 0) {
-            return data;
-        } else {
-            throw new IllegalArgumentException(
-                    "ParallelMapperImpl was closed, before how the calculations ended"
-            );
+        try {
+            return future.get();
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
         }
     }
 
     /*package-private*/
-    synchronized void close() {
-        notify();
+    void close() {
+        future.completeExceptionally(new IllegalArgumentException(
+                "ParallelMapperImpl was closed, before how the calculations ended"
+        ));
+    }
+
+    // marks chunk as finished and delivers ready results, if no other thread is delivering them
+    private void deliver(final int index, final int failed) {
+        finishedTo.set(index, failed);
+        while (delivering.compareAndSet(false, true)) {
+            try {
+                drain();
+            } finally {
+                delivering.set(false);
+            }
+            // a chunk, that finished after drain and before release, is delivered by this thread
+            if (stopped || delivered == finishedTo.length() || finishedTo.get(delivered) == -1) {
+                return;
+            }
+        }
+    }
+
+    // passes results of the finished prefix of chunks to consumer, stops at first failed element
+    @SuppressWarnings("unchecked")
+    private void drain() {
+        stopped |= future.isCancelled();
+        while (!stopped && delivered < finishedTo.length() && finishedTo.get(delivered) != -1) {
+            final int end = Math.min(data.length, (delivered + 1) * chunk);
+            final int to = finishedTo.get(delivered);
+            for (int i = delivered * chunk; i < to; i++) {
+                try {
+                    consumer.accept((R) data[i]);
+                } catch (final RuntimeException e) {
+                    set(e);
+                    stopped = true;
+                    break;
+                }
+                data[i] = null;
+            }
+            stopped |= to < end;
+            delivered++;
+        }
+        if (!deliveryDone && (stopped || delivered == finishedTo.length())) {
+            deliveryDone = true;
+            decrement();
+        }
     }
 
     private void decrement() {
-        --numberActive;
-        if (numberActive == 0) {
-            notify();
+        if (numberActive.decrementAndGet() == 0) {
+            complete();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private synchronized void complete() {
+        if (runtimeException != null) {
+            future.completeExceptionally(runtimeException);
+        } else {
+            future.complete((List<R>) Arrays.asList(data));
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,97 @@
+package info.kgeorgiy.ja.dmitriev.iterative.test;
+
+import info.kgeorgiy.ja.dmitriev.iterative.IterativeParallelism;
+import info.kgeorgiy.ja.dmitriev.iterative.ParallelMapperImpl;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BinaryOperator;
+import java.util.stream.IntStream;
+
+/**
+ * Tests of {@link IterativeParallelism} in its modes of execution.
+ *
+ * @author Dmitriev Vladislav (bitree2004@yandex.ru)
+ * @since 21
+ */
+@TestMethodOrder(MethodOrderer.MethodName.class)
+public class IterativeParallelismTest {
+    /**
+     * Random for generating arguments.
+     */
+    protected static final Random random = new Random(12);
+    /**
+     * Numbers of threads in tests.
+     */
+    protected static final List<Integer> THREADS = List.of(1, 2, 3, 8);
+
+    /**
+     * Checks, that {@code map} and {@code filter} return mutable lists for random and sequential access input.
+     */
+    @Test
+    public void test1_mutableResults() throws InterruptedException {
+        try (final var pool = new ForkJoinPool(4)) {
+            for (final var parallelism : List.of(new IterativeParallelism(), new IterativeParallelism(pool))) {
+                for (final int threads : THREADS) {
+                    final List<Integer> values = IntStream.range(0, random.nextInt(1000))
+                            .map(x -> random.nextInt(100)).boxed().toList();
+                    final int step = random.nextInt(3) + 1;
+                    for (final List<Integer> input : List.of(values, new LinkedList<>(values))) {
+                        final List<Integer> expected = new ArrayList<>();
+                        for (int j = 0; j < values.size(); j += step) {
+                            expected.add(values.get(j));
+                        }
+                        checkMutable(expected.stream().map(x -> x * 2).toList(),
+                                     parallelism.map(threads, input, x -> x * 2, step));
+                        checkMutable(expected.stream().filter(x -> x % 2 == 0).toList(),
+                                     parallelism.filter(threads, input, x -> x % 2 == 0, step));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks prefix reductions and stable sort on random and sequential access input, also over a mapper.
+     */
+    @Test
+    public void test2_scanAndSort() throws InterruptedException {
+        for (final int threads : THREADS) {
+            try (final var mapper = new ParallelMapperImpl(threads)) {
+                for (final var parallelism : List.of(new IterativeParallelism(), new IterativeParallelism(mapper))) {
+                    for (int i = 0; i < 20; i++) {
+                        final List<Integer> values = IntStream.range(0, random.nextInt(1000))
+                                .map(x -> random.nextInt(100)).boxed().toList();
+                        final int step = random.nextInt(3) + 1;
+                        final BinaryOperator<Integer> sum = Integer::sum;
+                        final List<Integer> expected = new ArrayList<>();
+                        int acc = 0;
+                        for (int j = 0; j < values.size(); j += step) {
+                            acc += values.get(j);
+                            expected.add(acc);
+                        }
+                        Assertions.assertEquals(expected, parallelism.scan(threads, values, 0, sum, step));
+                        Assertions.assertEquals(expected,
+                                                parallelism.scan(threads, new LinkedList<>(values), 0, sum, step));
+
+                        final Comparator<Integer> byTens = Comparator.comparingInt(x -> x / 10);
+                        final List<Integer> sorted = new ArrayList<>(values);
+                        sorted.sort(byTens);
+                        Assertions.assertEquals(sorted, parallelism.sort(threads, values, byTens));
+                    }
+                }
+            }
+        }
+    }
+
+    private static void checkMutable(final List<Integer> expected, final List<Integer> actual) {
+        Assertions.assertEquals(expected, actual);
+        actual.add(-1);
+        actual.removeFirst();
+        Assertions.assertEquals(expected.size(), actual.size());
+    }
+}
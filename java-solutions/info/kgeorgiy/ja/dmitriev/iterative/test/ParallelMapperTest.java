@@ -0,0 +1,277 @@
+package info.kgeorgiy.ja.dmitriev.iterative.test;
+
+import info.kgeorgiy.ja.dmitriev.iterative.IterativeParallelism;
+import info.kgeorgiy.ja.dmitriev.iterative.ParallelMapperImpl;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+
+/**
+ * Tests of {@link ParallelMapperImpl}, its queue of tasks, and of {@link IterativeParallelism} on top of it.
+ *
+ * @author Dmitriev Vladislav (bitree2004@yandex.ru)
+ * @since 21
+ */
+@TestMethodOrder(MethodOrderer.MethodName.class)
+public class ParallelMapperTest {
+    /**
+     * Random for generating arguments.
+     */
+    protected static final Random random = new Random(12);
+    /**
+     * Numbers of threads of mappers in tests.
+     */
+    protected static final List<Integer> THREADS = List.of(1, 2, 3, 8);
+
+    /**
+     * Checks, that results are in order of arguments for concurrent calls of different priorities.
+     */
+    @Test
+    public void test1_mapOrder() throws InterruptedException {
+        for (final int threads : THREADS) {
+            try (final var mapper = new ParallelMapperImpl(threads)) {
+                final List<Thread> callers = new ArrayList<>();
+                final List<Throwable> errors = Collections.synchronizedList(new ArrayList<>());
+                for (int caller = 1; caller <= 4; caller++) {
+                    final int c = caller;
+                    final List<Integer> args = range(random.nextInt(10_000));
+                    callers.add(Thread.ofPlatform().start(() -> {
+                        try {
+                            Assertions.assertEquals(args.stream().map(x -> x * c).toList(),
+                                                    mapper.map(x -> x * c, args, c));
+                        } catch (final Throwable e) {
+                            errors.add(e);
+                        }
+                    }));
+                }
+                for (final Thread caller : callers) {
+                    caller.join();
+                }
+                Assertions.assertEquals(List.of(), errors);
+                Assertions.assertEquals(List.of(), mapper.map(x -> x, List.of()));
+            }
+        }
+    }
+
+    /**
+     * Checks, that every element is mapped exactly once for sizes around the number of chunks,
+     * and that an exception of the function is thrown by the call.
+     */
+    @Test
+    public void test2_chunks() throws InterruptedException {
+        for (final int threads : THREADS) {
+            try (final var mapper = new ParallelMapperImpl(threads)) {
+                for (final int size : new int[]{0, 1, threads - 1, threads + 1, 4 * threads + 1, 100_000}) {
+                    final var calls = new AtomicIntegerArray(size);
+                    Assertions.assertEquals(range(size), mapper.map(x -> {
+                        calls.incrementAndGet(x);
+                        return x;
+                    }, range(size)));
+                    for (int i = 0; i < size; i++) {
+                        Assertions.assertEquals(1, calls.get(i));
+                    }
+                }
+                final int bad = random.nextInt(10_000);
+                final var e = Assertions.assertThrows(IllegalStateException.class, () -> mapper.map(x -> {
+                    if (x == bad) {
+                        throw new IllegalStateException("bad " + x);
+                    }
+                    return x;
+                }, range(10_000)));
+                Assertions.assertEquals("bad " + bad, e.getMessage());
+                Assertions.assertEquals(range(100), mapper.map(x -> x, range(100)));
+            }
+        }
+    }
+
+    /**
+     * Checks, that the virtual thread mode runs blocking functions concurrently and keeps order of results,
+     * alone and under {@link IterativeParallelism}.
+     */
+    @Test
+    public void test3_virtualThreads() {
+        Assertions.assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            try (final var mapper = ParallelMapperImpl.newVirtualThreadPerTask()) {
+                // sequentially it would take 100 seconds
+                Assertions.assertEquals(range(1000), mapper.map(x -> sleep(100, x), range(1000)));
+                final var parallelism = new IterativeParallelism(mapper);
+                Assertions.assertEquals(999, parallelism.maximum(8, range(1000), Comparator.naturalOrder(), 1));
+            }
+            final var parallelism = new IterativeParallelism(Thread.ofVirtual().factory());
+            Assertions.assertEquals(
+                    range(1000).stream().map(x -> x * 2).toList(),
+                    parallelism.map(100, range(1000), x -> sleep(100, x * 2), 1)
+            );
+        });
+    }
+
+    /**
+     * Checks, that cancellation removes not started tasks and the mapper stays usable.
+     */
+    @Test
+    public void test4_cancel() throws InterruptedException {
+        for (final int threads : THREADS) {
+            try (final var mapper = new ParallelMapperImpl(threads)) {
+                final var started = new AtomicInteger();
+                // four chunks of 100 ms per thread
+                final var future = mapper.mapAsync(x -> {
+                    started.incrementAndGet();
+                    return sleep(10, x);
+                }, range(40 * threads));
+                Thread.sleep(20);
+                Assertions.assertTrue(future.cancel(false));
+                // running chunks are finished
+                Thread.sleep(300);
+                final int afterCancel = started.get();
+                Thread.sleep(100);
+                Assertions.assertEquals(afterCancel, started.get());
+                Assertions.assertTrue(afterCancel <= 20 * threads, "Started " + afterCancel + " tasks");
+                Assertions.assertEquals(range(100), mapper.map(x -> x, range(100)));
+            }
+        }
+    }
+
+    /**
+     * Checks, that calls of a closed mapper fail instead of hanging.
+     */
+    @Test
+    public void test5_closed() {
+        Assertions.assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            for (final int threads : THREADS) {
+                final var mapper = new ParallelMapperImpl(threads);
+                final var running = mapper.mapAsync(x -> sleep(5, x), range(400 * threads));
+                mapper.close();
+                Assertions.assertThrows(ExecutionException.class, running::get);
+                Assertions.assertThrows(IllegalArgumentException.class, () -> mapper.map(x -> x, range(10)));
+                Assertions.assertThrows(ExecutionException.class, () -> mapper.mapAsync(x -> x, range(10)).get());
+            }
+        });
+    }
+
+    /**
+     * Checks asynchronous results, and that ordered results are delivered in order
+     * and a slow consumer occupies only one thread.
+     */
+    @Test
+    public void test6_mapOrdered() throws InterruptedException, ExecutionException {
+        for (final int threads : THREADS) {
+            try (final var mapper = new ParallelMapperImpl(threads)) {
+                Assertions.assertEquals(range(1000), mapper.mapAsync(x -> x, range(1000)).get());
+                final List<Integer> delivered = new ArrayList<>();
+                mapper.mapOrdered(x -> sleep(random.nextInt(2), x), range(1000), delivered::add).get();
+                Assertions.assertEquals(range(1000), delivered);
+
+                if (threads == 1) {
+                    continue;
+                }
+                final var release = new CountDownLatch(1);
+                final CompletableFuture<Void> blocked = mapper.mapOrdered(x -> x, range(100), x -> {
+                    try {
+                        release.await();
+                    } catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+                Assertions.assertTimeoutPreemptively(Duration.ofSeconds(5),
+                        () -> Assertions.assertEquals(range(100), mapper.map(x -> x, range(100))));
+                release.countDown();
+                blocked.get();
+            }
+        }
+    }
+
+    /**
+     * Checks, that a small call isn't starved by a large call submitted before it:
+     * it waits for a couple of chunks of the large call, not for all of them.
+     */
+    @Test
+    public void test7_smallCallIsNotStarved() throws InterruptedException {
+        for (final int threads : THREADS) {
+            try (final var mapper = new ParallelMapperImpl(threads)) {
+                // about ten chunks of 200 ms per thread
+                final var large = mapper.mapAsync(x -> x % 20 == 0 ? sleep(1, x) : x, range(40_000 * threads));
+                Thread.sleep(10);
+                final long start = System.nanoTime();
+                Assertions.assertEquals(range(3), mapper.map(x -> x, range(3), 3));
+                final long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                Assertions.assertFalse(large.isDone());
+                Assertions.assertTrue(elapsed < 1_000, "Small call waited " + elapsed + " ms");
+                large.cancel(false);
+                Assertions.assertThrows(IllegalArgumentException.class, () -> mapper.map(x -> x, range(3), 0));
+            }
+        }
+    }
+
+    /**
+     * Checks counters of tasks and exceptions, queue wait statistics and the registered MBean.
+     */
+    @Test
+    public void test8_statistics() throws InterruptedException, JMException {
+        final var server = ManagementFactory.getPlatformMBeanServer();
+        for (final int threads : THREADS) {
+            final ObjectName name;
+            try (final var mapper = new ParallelMapperImpl(threads)) {
+                Assertions.assertEquals(range(10_000), mapper.map(x -> x, range(10_000)));
+                Assertions.assertThrows(IllegalStateException.class, () -> mapper.map(x -> {
+                    throw new IllegalStateException();
+                }, range(10)));
+                // counters of a task are updated after its results are delivered
+                waitFor(() -> {
+                    final var statistics = mapper.statistics();
+                    return statistics.tasksCompleted() == statistics.tasksSubmitted();
+                });
+                final var statistics = mapper.statistics();
+                Assertions.assertEquals(0, statistics.queueLength());
+                Assertions.assertTrue(statistics.tasksSubmitted() > 0);
+                Assertions.assertEquals(0, statistics.tasksCancelled());
+                Assertions.assertTrue(statistics.exceptions() > 0);
+                Assertions.assertEquals(statistics.tasksCompleted(),
+                                        Arrays.stream(statistics.latencyHistogram()).sum());
+                Assertions.assertEquals(threads, statistics.utilization().length);
+                Assertions.assertEquals(2, statistics.queueWait().getCount());
+                Assertions.assertEquals(2, mapper.queueWaitStatistics().getCount());
+
+                name = mapper.registerMBean("test" + threads);
+                Assertions.assertEquals(statistics.tasksCompleted(), server.getAttribute(name, "TasksCompleted"));
+                Assertions.assertThrows(IllegalStateException.class, () -> mapper.registerMBean("again"));
+            }
+            Assertions.assertFalse(server.isRegistered(name));
+        }
+    }
+
+    private static List<Integer> range(final int size) {
+        return IntStream.range(0, size).boxed().toList();
+    }
+
+    private static int sleep(final int millis, final int value) {
+        try {
+            Thread.sleep(millis);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return value;
+    }
+
+    private static void waitFor(final BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            Assertions.assertTrue(System.nanoTime() < deadline, "Condition isn't met in 5 seconds");
+            Thread.sleep(1);
+        }
+    }
+}
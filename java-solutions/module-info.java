@@ -10,6 +10,7 @@ module info.kgeorgiy.ja.dmitriev {
     // requires standard library java
     requires java.compiler;
     requires java.rmi;
+    requires java.management;
     // requires kgeorgiy's library
     requires info.kgeorgiy.java.advanced.student;
     requires info.kgeorgiy.java.advanced.implementor;
@@ -30,6 +31,12 @@ module info.kgeorgiy.ja.dmitriev {
     exports info.kgeorgiy.ja.dmitriev.bank;
     exports info.kgeorgiy.ja.dmitriev.bank.src;
 
+    // for ParallelMapperMXBean
+    exports info.kgeorgiy.ja.dmitriev.iterative to java.management;
+
     opens info.kgeorgiy.ja.dmitriev.bank.src.person;
     opens info.kgeorgiy.ja.dmitriev.i18n.test;
+    opens info.kgeorgiy.ja.dmitriev.arrayset.test;
+    opens info.kgeorgiy.ja.dmitriev.iterative.test;
+    opens info.kgeorgiy.ja.dmitriev.crawler.test;
 }